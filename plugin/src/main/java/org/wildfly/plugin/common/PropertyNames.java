@@ -24,6 +24,8 @@ public interface PropertyNames {
 
     String CHANNELS = "wildfly.channels";
 
+    String CHANNELS_LOCK_FILE = "wildfly.channels.lock-file";
+
     String CHECK_PACKAGING = "wildfly.checkPackaging";
 
     String COMMANDS = "wildfly.commands";
@@ -114,6 +116,12 @@ public interface PropertyNames {
 
     String WILDFLY_PACKAGING_EXTRA_CONTENT_DIRS = "wildfly.packaging.extra.dirs";
 
+    String WILDFLY_PROVISIONING_CACHE = "wildfly.provisioning.cache";
+
+    String WILDFLY_PROVISIONING_CACHE_DIR = "wildfly.provisioning.cache.dir";
+
+    String WILDFLY_PROVISIONING_CACHE_HARD_LINKS = "wildfly.provisioning.cache.hard-links";
+
     String WILDFLY_PROVISIONING_DIR = "wildfly.provisioning.dir";
 
     String WILDFLY_PROVISIONING_FEATURE_PACKS = "wildfly.provisioning.feature-packs";
@@ -132,5 +140,7 @@ public interface PropertyNames {
 
     String WILDFLY_PROVISIONING_RECORD_STATE = "wildfly.provisioning.record.state";
 
+    String WILDFLY_PROVISIONING_REPORT = "wildfly.provisioning.report";
+
     String WILDFLY_VERSION = "wildfly.version";
 }
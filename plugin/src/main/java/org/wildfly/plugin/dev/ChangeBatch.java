@@ -0,0 +1,178 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A set of file changes collected from the watch service over a quiet period. The {@linkplain WatchHandler.Result results}
+ * of each change are merged so that a single resources, compile, package and redeploy cycle can be executed for the
+ * whole batch.
+ */
+class ChangeBatch implements WatchHandler.Result {
+    private final Set<Path> changedFiles = new LinkedHashSet<>();
+    private final Set<Path> deletedFiles = new LinkedHashSet<>();
+    private boolean requiresRecompile;
+    private boolean requiresRedeploy;
+    private boolean requiresCopyResources;
+    private boolean requiresRepackage;
+    private boolean requiresContentUpdate;
+    private long firstChangeTime;
+
+    /**
+     * Adds a changed file and merges the result of handling the change into this batch.
+     *
+     * @param file   the file which changed
+     * @param result the result of handling the change
+     */
+    void add(final Path file, final WatchHandler.Result result) {
+        recordChangeTime();
+        changedFiles.add(file);
+        mergeResult(result);
+    }
+
+    private void mergeResult(final WatchHandler.Result result) {
+        requiresRecompile |= result.requiresRecompile();
+        requiresRedeploy |= result.requiresRedeploy();
+        requiresCopyResources |= result.requiresCopyResources();
+        requiresRepackage |= result.requiresRepackage();
+        requiresContentUpdate |= result.requiresContentUpdate();
+    }
+
+    /**
+     * Adds a deleted file to this batch and merges the result of handling the deletion into this batch.
+     *
+     * @param file   the file which was deleted
+     * @param result the result of handling the deletion
+     */
+    void addDeletion(final Path file, final WatchHandler.Result result) {
+        recordChangeTime();
+        deletedFiles.add(file);
+        mergeResult(result);
+    }
+
+    /**
+     * Merges all changes of another batch into this batch.
+     *
+     * @param other the batch to merge
+     *
+     * @return this batch
+     */
+    ChangeBatch merge(final ChangeBatch other) {
+        if (isEmpty() || (!other.isEmpty() && other.firstChangeTime - firstChangeTime < 0)) {
+            firstChangeTime = other.firstChangeTime;
+        }
+        changedFiles.addAll(other.changedFiles);
+        deletedFiles.addAll(other.deletedFiles);
+        mergeResult(other);
+        return this;
+    }
+
+    /**
+     * The time, as returned by {@link System#nanoTime()}, the first change of this batch was added.
+     *
+     * @return the time of the first change
+     */
+    long firstChangeTime() {
+        return firstChangeTime;
+    }
+
+    private void recordChangeTime() {
+        if (isEmpty()) {
+            firstChangeTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Indicates whether any file in this batch was deleted.
+     *
+     * @return {@code true} if at least one file was deleted
+     */
+    boolean hasDeletions() {
+        return !deletedFiles.isEmpty();
+    }
+
+    /**
+     * Indicates whether no changes have been recorded in this batch.
+     *
+     * @return {@code true} if the batch is empty
+     */
+    boolean isEmpty() {
+        return changedFiles.isEmpty() && deletedFiles.isEmpty();
+    }
+
+    /**
+     * The number of distinct files changed or deleted in this batch.
+     *
+     * @return the number of files in this batch
+     */
+    int size() {
+        return changedFiles.size() + deletedFiles.size();
+    }
+
+    /**
+     * The files which were created or modified.
+     *
+     * @return an unmodifiable set of the changed files
+     */
+    Set<Path> changedFiles() {
+        return Collections.unmodifiableSet(changedFiles);
+    }
+
+    /**
+     * The files which were deleted.
+     *
+     * @return an unmodifiable set of the deleted files
+     */
+    Set<Path> deletedFiles() {
+        return Collections.unmodifiableSet(deletedFiles);
+    }
+
+    @Override
+    public boolean requiresRecompile() {
+        return requiresRecompile;
+    }
+
+    @Override
+    public boolean requiresRedeploy() {
+        return requiresRedeploy;
+    }
+
+    @Override
+    public boolean requiresCopyResources() {
+        return requiresCopyResources;
+    }
+
+    @Override
+    public boolean requiresRepackage() {
+        return requiresRepackage;
+    }
+
+    @Override
+    public boolean requiresContentUpdate() {
+        return requiresContentUpdate;
+    }
+
+    /**
+     * Indicates whether all changes in this batch can be applied by copying the files into the deployment.
+     *
+     * @return {@code true} if no compile, package or redeploy is required for the changes in this batch
+     */
+    boolean isContentUpdateOnly() {
+        return requiresContentUpdate && !requiresRecompile && !requiresCopyResources && !requiresRepackage
+                && !requiresRedeploy;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[changed=" + changedFiles.size() + ", deleted=" + deletedFiles.size()
+                + ", recompile=" + requiresRecompile + ", copyResources=" + requiresCopyResources + ", repackage="
+                + requiresRepackage + ", redeploy=" + requiresRedeploy + ", contentUpdate=" + requiresContentUpdate + "]";
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The symbolic information of a class file, read from its constant pool. Apart from the constant pool only the names
+ * of the class, its super class and interfaces, the declarations of the fields and methods and the {@code SourceFile}
+ * and {@code Signature} attributes are read. The bytecode is skipped.
+ * <p>
+ * The constant pool contains the names of all types, members and annotations referenced by the class as well as its
+ * string literals. It does not contain the bytecode, so changes to the body of a method which do not reference new
+ * symbols leave the constants unchanged.
+ * </p>
+ */
+class ClassFileConstants {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private final String className;
+    private final String sourceFile;
+    private final Set<String> strings;
+    private final Set<String> referencedClasses;
+    private final Set<String> api;
+
+    private ClassFileConstants(final String className, final String sourceFile, final Set<String> strings,
+            final Set<String> referencedClasses, final Set<String> api) {
+        this.className = className;
+        this.sourceFile = sourceFile;
+        this.strings = Collections.unmodifiableSet(strings);
+        this.referencedClasses = Collections.unmodifiableSet(referencedClasses);
+        this.api = Collections.unmodifiableSet(api);
+    }
+
+    /**
+     * Reads the constants of the class file.
+     *
+     * @param file the class file
+     *
+     * @return the constants of the class file
+     *
+     * @throws IOException if the file could not be read or is not a valid class file
+     */
+    static ClassFileConstants read(final Path file) throws IOException {
+        return read(Files.readAllBytes(file));
+    }
+
+    /**
+     * Reads the constants of the class file.
+     *
+     * @param bytes the bytes of the class file
+     *
+     * @return the constants of the class file
+     *
+     * @throws IOException if the bytes are not a valid class file
+     */
+    static ClassFileConstants read(final byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a class file");
+            }
+            // Minor and major version
+            in.skipBytes(4);
+            final int count = in.readUnsignedShort();
+            final String[] utf8 = new String[count];
+            // The index of the name of each Class entry, indexed by the constant pool index of the entry
+            final int[] classNames = new int[count];
+            for (int i = 1; i < count; i++) {
+                final int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classNames[i] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.skipBytes(2);
+                        break;
+                    case 15: // MethodHandle
+                        in.skipBytes(3);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.skipBytes(4);
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.skipBytes(8);
+                        // Long and double constants take two entries
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Invalid constant pool tag " + tag);
+                }
+            }
+            final int accessFlags = in.readUnsignedShort();
+            final int thisClass = in.readUnsignedShort();
+            final Set<String> strings = new TreeSet<>();
+            final Set<String> referencedClasses = new TreeSet<>();
+            for (String value : utf8) {
+                if (value != null) {
+                    strings.add(value);
+                    // Types only used in descriptors and signatures, e.g. of a field or a parameter of an invoked
+                    // method, are not referenced by a Class entry
+                    Signatures.parse(value, referencedClasses);
+                }
+            }
+            for (int i = 1; i < count; i++) {
+                final String name = utf8[classNames[i]];
+                if (classNames[i] > 0 && name != null) {
+                    // Array types are referenced by their descriptor
+                    if (!name.startsWith("[") || !Signatures.parse(name, referencedClasses)) {
+                        referencedClasses.add(name);
+                    }
+                }
+            }
+            final String className = thisClass < count ? utf8[classNames[thisClass]] : null;
+            referencedClasses.remove(className);
+            // The API includes the super class, the interfaces and the non-private members
+            final Set<String> api = new TreeSet<>();
+            final StringBuilder type = new StringBuilder();
+            type.append(accessFlags).append(' ').append(className(utf8, classNames, in.readUnsignedShort()));
+            final int interfaces = in.readUnsignedShort();
+            for (int i = 0; i < interfaces; i++) {
+                type.append(' ').append(className(utf8, classNames, in.readUnsignedShort()));
+            }
+            readMembers(in, utf8, api);
+            readMembers(in, utf8, api);
+            String sourceFile = null;
+            final int attributes = in.readUnsignedShort();
+            for (int i = 0; i < attributes; i++) {
+                final String name = utf8[in.readUnsignedShort()];
+                final int length = in.readInt();
+                if ("SourceFile".equals(name)) {
+                    sourceFile = utf8[in.readUnsignedShort()];
+                } else if ("Signature".equals(name)) {
+                    type.append(' ').append(utf8[in.readUnsignedShort()]);
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+            api.add(type.toString());
+            return new ClassFileConstants(className, sourceFile, strings, referencedClasses, api);
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid class file", e);
+        }
+    }
+
+    /**
+     * The internal name of the class, e.g. {@code org/example/Foo$Bar}.
+     *
+     * @return the internal name of the class or {@code null} if it could not be determined
+     */
+    String className() {
+        return className;
+    }
+
+    /**
+     * The name of the source file the class was compiled from, without the directory, e.g. {@code Foo.java}.
+     *
+     * @return the name of the source file or {@code null} if the class does not contain the information
+     */
+    String sourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * All strings of the constant pool. These include the names and descriptors of the referenced types and members,
+     * the names of attributes and the string literals.
+     *
+     * @return the strings of the constant pool
+     */
+    Set<String> strings() {
+        return strings;
+    }
+
+    /**
+     * The internal names of the classes referenced by this class, excluding the class itself. This includes the classes
+     * referenced by a {@code Class} entry of the constant pool as well as the classes used in descriptors and generic
+     * signatures, e.g. the types of fields, parameters and annotations. The element types of arrays are included
+     * rather than the array types. Nested classes are included with their binary name, e.g.
+     * {@code org/example/Foo$Bar}.
+     * <p>
+     * Any string of the constant pool which is a valid descriptor or signature is parsed, so a string literal such as
+     * {@code "Lorg/example/Foo;"} results in a reference to {@code org/example/Foo}.
+     * </p>
+     *
+     * @return the referenced classes
+     */
+    Set<String> referencedClasses() {
+        return referencedClasses;
+    }
+
+    /**
+     * The declarations of the class which other classes may be compiled against. This includes the access flags, super
+     * class, interfaces and generic signature of the class as well as the access flags, names, descriptors and generic
+     * signatures of the fields and methods which are neither private nor synthetic.
+     * <p>
+     * If the API of a class did not change, the classes using it do not need to be compiled again. Note that the values
+     * of constants are not included.
+     * </p>
+     *
+     * @return the declarations of the class
+     */
+    Set<String> api() {
+        return api;
+    }
+
+    private static String className(final String[] utf8, final int[] classNames, final int index) {
+        // The super class of java.lang.Object is 0
+        return index == 0 ? "" : utf8[classNames[index]];
+    }
+
+    private static void readMembers(final DataInputStream in, final String[] utf8, final Set<String> api)
+            throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            final int accessFlags = in.readUnsignedShort();
+            final String name = utf8[in.readUnsignedShort()];
+            final String descriptor = utf8[in.readUnsignedShort()];
+            String signature = null;
+            final int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                final String attribute = utf8[in.readUnsignedShort()];
+                final int length = in.readInt();
+                if ("Signature".equals(attribute)) {
+                    signature = utf8[in.readUnsignedShort()];
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+            if ((accessFlags & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0) {
+                api.add(accessFlags + " " + name + descriptor + (signature == null ? "" : " " + signature));
+            }
+        }
+    }
+
+    /**
+     * A parser of the descriptors and generic signatures of the class file format which collects the referenced classes.
+     */
+    private static class Signatures {
+        private final String value;
+        private final Set<String> classes = new TreeSet<>();
+        private int pos;
+
+        private Signatures(final String value) {
+            this.value = value;
+        }
+
+        /**
+         * Parses a field or method descriptor, or a class, field or method signature.
+         *
+         * @param value   the value to parse
+         * @param classes the set to add the referenced classes to
+         *
+         * @return {@code true} if the value was a valid descriptor or signature, otherwise {@code false} and no classes
+         *             have been added
+         */
+        static boolean parse(final String value, final Set<String> classes) {
+            if (value.isEmpty() || "(<LT[".indexOf(value.charAt(0)) < 0) {
+                return false;
+            }
+            final Signatures parser = new Signatures(value);
+            if (parser.parse()) {
+                classes.addAll(parser.classes);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean parse() {
+            // A field descriptor or signature
+            if (referenceType() && pos == value.length()) {
+                return true;
+            }
+            classes.clear();
+            pos = 0;
+            // A method or class signature, both may start with type parameters
+            if (peek() == '<' && !typeParameters()) {
+                return false;
+            }
+            if (peek() == '(') {
+                pos++;
+                while (peek() != ')') {
+                    if (!javaType()) {
+                        return false;
+                    }
+                }
+                pos++;
+                if (peek() == 'V') {
+                    pos++;
+                } else if (!javaType()) {
+                    return false;
+                }
+                while (peek() == '^') {
+                    pos++;
+                    if (!referenceType()) {
+                        return false;
+                    }
+                }
+            } else {
+                // The super class and the interfaces
+                do {
+                    if (!classType()) {
+                        return false;
+                    }
+                } while (pos < value.length());
+            }
+            return pos == value.length();
+        }
+
+        private boolean typeParameters() {
+            pos++;
+            do {
+                if (identifier() == null || peek() != ':') {
+                    return false;
+                }
+                pos++;
+                // The class bound may be empty
+                if (peek() != ':' && peek() != '>' && !referenceType()) {
+                    return false;
+                }
+                while (peek() == ':') {
+                    pos++;
+                    if (!referenceType()) {
+                        return false;
+                    }
+                }
+            } while (peek() != '>' && pos < value.length());
+            return consume('>');
+        }
+
+        private boolean javaType() {
+            if ("BCDFIJSZ".indexOf(peek()) >= 0 && peek() != 0) {
+                pos++;
+                return true;
+            }
+            return referenceType();
+        }
+
+        private boolean referenceType() {
+            switch (peek()) {
+                case 'L':
+                    return classType();
+                case 'T':
+                    pos++;
+                    return identifier() != null && consume(';');
+                case '[':
+                    pos++;
+                    return javaType();
+                default:
+                    return false;
+            }
+        }
+
+        private boolean classType() {
+            if (!consume('L')) {
+                return false;
+            }
+            final StringBuilder name = new StringBuilder();
+            String segment = identifier();
+            if (segment == null) {
+                return false;
+            }
+            name.append(segment);
+            while (peek() == '/') {
+                pos++;
+                segment = identifier();
+                if (segment == null) {
+                    return false;
+                }
+                name.append('/').append(segment);
+            }
+            for (;;) {
+                classes.add(name.toString());
+                if (peek() == '<' && !typeArguments()) {
+                    return false;
+                }
+                if (peek() != '.') {
+                    break;
+                }
+                pos++;
+                segment = identifier();
+                if (segment == null) {
+                    return false;
+                }
+                name.append('$').append(segment);
+            }
+            return consume(';');
+        }
+
+        private boolean typeArguments() {
+            pos++;
+            do {
+                if (peek() == '*') {
+                    pos++;
+                } else {
+                    if (peek() == '+' || peek() == '-') {
+                        pos++;
+                    }
+                    if (!referenceType()) {
+                        return false;
+                    }
+                }
+            } while (peek() != '>' && pos < value.length());
+            return consume('>');
+        }
+
+        private String identifier() {
+            final int start = pos;
+            while (pos < value.length() && ".;[/<>:".indexOf(value.charAt(pos)) < 0) {
+                pos++;
+            }
+            return pos == start ? null : value.substring(start, pos);
+        }
+
+        private boolean consume(final char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private char peek() {
+            return pos < value.length() ? value.charAt(pos) : 0;
+        }
+    }
+}
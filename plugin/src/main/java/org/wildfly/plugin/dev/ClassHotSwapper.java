@@ -0,0 +1,136 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.sun.jdi.Bootstrap;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.AttachingConnector;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.connect.IllegalConnectorArgumentsException;
+
+/**
+ * Redefines classes in a running server through the JDWP agent the server was started with. Only the bodies of methods
+ * can be changed, any change to the schema of a class, e.g. adding a method or field, is rejected by the JVM. In that
+ * case the caller is expected to redeploy the application.
+ * <p>
+ * The debugger connection is only held while classes are being redefined. The JDWP agent accepts a single debugger
+ * at a time and the connection is released so an IDE can still attach to the server.
+ * </p>
+ */
+class ClassHotSwapper {
+    private static final String SOCKET_TRANSPORT = "dt_socket";
+
+    private final String host;
+    private final int port;
+    private final Log log;
+
+    private ClassHotSwapper(final String host, final int port, final Log log) {
+        this.host = host;
+        this.port = port;
+        this.log = log;
+    }
+
+    /**
+     * Creates a new hot swapper which attaches to the JDWP agent listening on the host and port.
+     *
+     * @param host the host the agent is listening on, {@code *} or {@code 0.0.0.0} resolve to {@code localhost}
+     * @param port the port the agent is listening on
+     * @param log  the log used for messages
+     *
+     * @return a new hot swapper
+     */
+    static ClassHotSwapper of(final String host, final int port, final Log log) {
+        final String resolvedHost = (host == null || host.isBlank() || "*".equals(host) || "0.0.0.0".equals(host))
+                ? "localhost"
+                : host;
+        return new ClassHotSwapper(resolvedHost, port, log);
+    }
+
+    /**
+     * Attempts to redefine the classes in the running server. Classes which have not yet been loaded are ignored as
+     * the new version will be loaded from the deployment once required.
+     *
+     * @param classes the binary names of the classes mapped to the new class file
+     *
+     * @return {@code true} if the classes were redefined, {@code false} if the classes could not be redefined and
+     *             the application should be redeployed
+     */
+    boolean redefine(final Map<String, Path> classes) {
+        if (classes.isEmpty()) {
+            return true;
+        }
+        final VirtualMachine vm;
+        try {
+            vm = attach();
+        } catch (IOException | IllegalConnectorArgumentsException e) {
+            log.debug(String.format("Failed to attach to the debugger agent on %s:%d", host, port), e);
+            log.info(String.format("Could not attach to the debugger agent on %s:%d, the application will be redeployed."
+                    + " Note that only a single debugger can be attached at a time.", host, port));
+            return false;
+        }
+        try {
+            if (!vm.canRedefineClasses()) {
+                log.info("The server JVM does not support redefining classes, the application will be redeployed.");
+                return false;
+            }
+            final Map<ReferenceType, byte[]> definitions = new HashMap<>();
+            for (Map.Entry<String, Path> entry : classes.entrySet()) {
+                final byte[] bytes = Files.readAllBytes(entry.getValue());
+                for (ReferenceType type : vm.classesByName(entry.getKey())) {
+                    // Ignore classes loaded by the bootstrap class loader, these cannot be part of the deployment
+                    if (type.classLoader() != null) {
+                        definitions.put(type, bytes);
+                    }
+                }
+            }
+            if (definitions.isEmpty()) {
+                return true;
+            }
+            vm.redefineClasses(definitions);
+            log.info(String.format("Hot swapped %d class(es): %s", classes.size(), classes.keySet()));
+            return true;
+        } catch (UnsupportedOperationException e) {
+            log.info(String.format("Classes could not be hot swapped, the application will be redeployed: %s",
+                    e.getLocalizedMessage()));
+        } catch (VMDisconnectedException | IOException | LinkageError e) {
+            log.debug("Failed to redefine classes", e);
+            log.info(String.format("Classes could not be hot swapped, the application will be redeployed: %s", e));
+        } finally {
+            try {
+                vm.dispose();
+            } catch (VMDisconnectedException ignore) {
+            }
+        }
+        return false;
+    }
+
+    private VirtualMachine attach() throws IOException, IllegalConnectorArgumentsException {
+        AttachingConnector connector = null;
+        for (AttachingConnector c : Bootstrap.virtualMachineManager().attachingConnectors()) {
+            if (SOCKET_TRANSPORT.equals(c.transport().name())) {
+                connector = c;
+                break;
+            }
+        }
+        if (connector == null) {
+            throw new IOException("No socket attaching connector is available.");
+        }
+        final Map<String, Connector.Argument> arguments = connector.defaultArguments();
+        arguments.get("hostname").setValue(host);
+        arguments.get("port").setValue(Integer.toString(port));
+        return connector.attach(arguments);
+    }
+}
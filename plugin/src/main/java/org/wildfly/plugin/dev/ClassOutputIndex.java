@@ -0,0 +1,281 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+/**
+ * An index of the files in the build output directory. The index is used to determine which files have been added,
+ * modified or removed by the compiler since the directory was last indexed.
+ * <p>
+ * Files are compared by a digest of their content. The compiler rewrites class files even if the resulting bytecode is
+ * identical, e.g. after a whitespace or comment change, so the last modified time alone cannot be used. To avoid
+ * reading every file on each scan, the digest is only recomputed if the size or last modified time of a file changed.
+ * </p>
+ */
+class ClassOutputIndex {
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final Path directory;
+    private Map<String, Entry> entries;
+
+    private ClassOutputIndex(final Path directory) {
+        this.directory = directory;
+        this.entries = Map.of();
+    }
+
+    /**
+     * Creates a new, empty, index for the directory.
+     *
+     * @param directory the output directory to index
+     *
+     * @return the new index
+     */
+    static ClassOutputIndex of(final Path directory) {
+        return new ClassOutputIndex(directory);
+    }
+
+    /**
+     * The indexed directory.
+     *
+     * @return the indexed directory
+     */
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Scans the directory and returns the differences from the previous scan. After the scan the index reflects the
+     * current state of the directory.
+     *
+     * @return the changes since the previous scan
+     *
+     * @throws IOException if an error occurs reading the directory
+     */
+    synchronized Changes update() throws IOException {
+        final Changes changes = changes();
+        commit(changes);
+        return changes;
+    }
+
+    /**
+     * Scans the directory and returns the differences from the previous scan without updating the index. The index
+     * only reflects the scanned state once the changes are {@linkplain #commit(Changes) committed}, so the same changes
+     * are returned again until then.
+     *
+     * @return the changes since the previous scan
+     *
+     * @throws IOException if an error occurs reading the directory
+     */
+    synchronized Changes changes() throws IOException {
+        final Map<String, Entry> current = scan();
+        final Map<String, Entry> previous = entries;
+        final Set<String> added = new TreeSet<>();
+        final Set<String> modified = new TreeSet<>();
+        final Set<String> removed = new TreeSet<>();
+        for (Map.Entry<String, Entry> entry : current.entrySet()) {
+            final Entry previousValue = previous.get(entry.getKey());
+            if (previousValue == null) {
+                added.add(entry.getKey());
+            } else if (previousValue.digest != entry.getValue().digest) {
+                modified.add(entry.getKey());
+            }
+        }
+        for (String file : previous.keySet()) {
+            if (!current.containsKey(file)) {
+                removed.add(file);
+            }
+        }
+        return new Changes(directory, current, added, modified, removed);
+    }
+
+    /**
+     * Updates the index to the state of the directory the changes were scanned from.
+     *
+     * @param changes the changes returned by {@link #changes()}
+     */
+    synchronized void commit(final Changes changes) {
+        entries = changes.entries;
+    }
+
+    private Map<String, Entry> scan() throws IOException {
+        if (Files.notExists(directory)) {
+            return Map.of();
+        }
+        final Map<String, Entry> previous = entries;
+        final Map<String, Entry> result = new HashMap<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final String name = toRelativeName(file);
+                final long size = attrs.size();
+                final long lastModified = attrs.lastModifiedTime().toMillis();
+                final Entry previousEntry = previous.get(name);
+                if (previousEntry != null && previousEntry.size == size && previousEntry.lastModified == lastModified) {
+                    result.put(name, previousEntry);
+                } else {
+                    result.put(name, new Entry(size, lastModified, digest(file, size)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result;
+    }
+
+    private String toRelativeName(final Path file) {
+        final Path relative = directory.relativize(file);
+        final StringBuilder name = new StringBuilder();
+        for (Path segment : relative) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(segment);
+        }
+        return name.toString();
+    }
+
+    private static long digest(final Path file, final long size) throws IOException {
+        final CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(file));
+        // Combine the size and checksum to lower the chance of a collision
+        return (size << 32) ^ crc.getValue();
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final long digest;
+
+        private Entry(final long size, final long lastModified, final long digest) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * The files which have changed in the output directory between two scans. The names are relative to the output
+     * directory and always use {@code /} as the separator.
+     */
+    static class Changes {
+        private final Path directory;
+        private final Map<String, Entry> entries;
+        private final Set<String> added;
+        private final Set<String> modified;
+        private final Set<String> removed;
+
+        private Changes(final Path directory, final Map<String, Entry> entries, final Set<String> added,
+                final Set<String> modified, final Set<String> removed) {
+            this.directory = directory;
+            this.entries = entries;
+            this.added = Collections.unmodifiableSet(added);
+            this.modified = Collections.unmodifiableSet(modified);
+            this.removed = Collections.unmodifiableSet(removed);
+        }
+
+        /**
+         * The files which did not exist in the previous scan.
+         *
+         * @return the added files
+         */
+        Set<String> added() {
+            return added;
+        }
+
+        /**
+         * The files which existed in the previous scan, but have changed.
+         *
+         * @return the modified files
+         */
+        Set<String> modified() {
+            return modified;
+        }
+
+        /**
+         * The files which existed in the previous scan, but no longer exist.
+         *
+         * @return the removed files
+         */
+        Set<String> removed() {
+            return removed;
+        }
+
+        /**
+         * Indicates whether no files have changed.
+         *
+         * @return {@code true} if no files were added, modified or removed
+         */
+        boolean isEmpty() {
+            return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+        }
+
+        /**
+         * Indicates whether only existing class files have been modified and no files have been added or removed.
+         *
+         * @return {@code true} if only existing class files have been modified
+         */
+        boolean isModifiedClassesOnly() {
+            return added.isEmpty() && removed.isEmpty() && modified.stream().allMatch(Changes::isClassFile);
+        }
+
+        /**
+         * Returns the modified class files mapped to the binary name of the class.
+         *
+         * @return a map of the binary class name to the class file
+         */
+        Map<String, Path> modifiedClasses() {
+            final Map<String, Path> result = new HashMap<>();
+            for (String file : modified) {
+                if (isClassFile(file)) {
+                    result.put(toClassName(file), directory.resolve(file));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the binary names of the classes which were added, modified or removed.
+         *
+         * @return the names of the changed classes
+         */
+        Set<String> changedClasses() {
+            final Set<String> result = new TreeSet<>();
+            for (Set<String> files : List.of(added, modified, removed)) {
+                for (String file : files) {
+                    if (isClassFile(file)) {
+                        result.add(toClassName(file));
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static boolean isClassFile(final String file) {
+            return file.endsWith(CLASS_EXTENSION);
+        }
+
+        private static String toClassName(final String file) {
+            return file.substring(0, file.length() - CLASS_EXTENSION.length()).replace('/', '.');
+        }
+
+        @Override
+        public String toString() {
+            return "Changes[added=" + added + ", modified=" + modified + ", removed=" + removed + "]";
+        }
+    }
+}
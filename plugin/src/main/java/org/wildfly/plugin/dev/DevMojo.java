@@ -9,18 +9,17 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executeMojo;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executionEnvironment;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.groupId;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.plugin;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
 import static org.wildfly.plugin.core.Constants.STANDALONE_XML;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
@@ -28,26 +27,41 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.DosFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.model.Resource;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -59,15 +73,18 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.api.GalleonBuilder;
 import org.jboss.galleon.api.GalleonFeaturePack;
 import org.jboss.galleon.api.Provisioning;
 import org.jboss.galleon.api.ProvisioningBuilder;
+import org.jboss.galleon.api.config.GalleonConfigurationWithLayers;
 import org.jboss.galleon.api.config.GalleonProvisioningConfig;
 import org.jboss.galleon.maven.plugin.util.MavenArtifactRepositoryManager;
 import org.jboss.galleon.maven.plugin.util.MvnMessageWriter;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
 import org.jboss.logging.Logger;
 import org.twdata.maven.mojoexecutor.MojoExecutor;
 import org.wildfly.channel.UnresolvedMavenArtifactException;
@@ -108,6 +125,12 @@ import org.wildfly.plugin.tools.server.StandaloneManager;
  * </p>
  *
  * <p>
+ * A snapshot of the sources is stored in the {@code wildfly-dev} directory of the build directory once the changes have
+ * been deployed. If neither the sources, the effective POM nor the resolved dependencies changed since the previous
+ * session, the initial build is skipped and the existing exploded deployment is used.
+ * </p>
+ *
+ * <p>
  * Note that if a WildFly Bootable JAR is packaged, it is ignored by this goal.
  * </p>
  *
@@ -124,6 +147,25 @@ public class DevMojo extends AbstractServerStartMojo {
     private static final String MAVEN_WAR_GOAL = "war";
     private static final String MAVEN_RESOURCES_PLUGIN = "maven-resources-plugin";
     private static final String MAVEN_RESOURCES_GOAL = "resources";
+    private static final String MAVEN_JAR_PLUGIN = "maven-jar-plugin";
+    private static final String MAVEN_JAR_GOAL = "jar";
+    // The maximum number of quiet periods a single batch of changes may be collected for
+    private static final int MAX_QUIET_PERIODS = 10;
+    // The maximum number of changed classes reported in an informational message
+    private static final int MAX_REPORTED_CLASSES = 10;
+    // The directory, relative to the build directory, the state of the dev goal is stored in
+    private static final String DEV_DIRECTORY = "wildfly-dev";
+    private static final String SOURCE_SNAPSHOT_FILE = "source-snapshot";
+    private static final String STAGING_SERVER_DIRECTORY = "server-staging";
+    private static final String REACTOR_MODULES_DIRECTORY = "modules";
+    private static final String RELOAD_TIMINGS_FILE = "reload-timings.jsonl";
+    // Paths of the server installation which contain runtime state and are kept when the server is re-provisioned
+    private static final Set<Path> PRESERVED_SERVER_PATHS = Set.of(
+            Path.of("standalone", "data"),
+            Path.of("standalone", "log"),
+            Path.of("standalone", "tmp"));
+    // The maximum number of layer discovery results kept for reuse
+    private static final int MAX_CACHED_SCAN_RESULTS = 3;
 
     /**
      * Executing any one of these phases means the compile phase will have been run, if these have not been run we
@@ -182,6 +224,16 @@ public class DevMojo extends AbstractServerStartMojo {
             Map.entry("webXml", ""),
             Map.entry("workDirectory", ""));
 
+    // Configuration parameters of the war plugin which require the war plugin to assemble the exploded deployment
+    private static final Set<String> WAR_PLUGIN_REQUIRED_PARAMETERS = Set.of(
+            "dependentWarExcludes",
+            "dependentWarIncludes",
+            "filters",
+            "overlays",
+            "warSourceExcludes",
+            "warSourceIncludes",
+            "webResources");
+
     // A list of configuration parameters of the war goal as of 3.3.2
     private static final Map<String, String> WAR_PARAMETERS = Map.ofEntries(
             Map.entry("archive", ""),
@@ -220,7 +272,6 @@ public class DevMojo extends AbstractServerStartMojo {
             Map.entry("webResources", ""),
             Map.entry("webXml", ""),
             Map.entry("workDirectory", ""));
-    private final Map<WatchKey, WatchContext> watchedDirectories = new HashMap<>();
 
     @Inject
     private BuildPluginManager pluginManager;
@@ -256,6 +307,10 @@ public class DevMojo extends AbstractServerStartMojo {
      * Additional extensions of files located in {@code src/webapp} directory and its sub-directories that don't
      * require a redeployment on update.
      * <p>
+     * Changes to these files are copied directly into the exploded deployment without executing the
+     * {@code maven-war-plugin}. For a remote server the deployment is packaged and redeployed.
+     * </p>
+     * <p>
      * The builtin list is {@code html, xhtml, jsp, js, css}.
      * </p>
      * <p>
@@ -279,6 +334,149 @@ public class DevMojo extends AbstractServerStartMojo {
     @Parameter(property = "wildfly.dev.ignore.patterns", alias = "ignore-patterns")
     private List<String> ignorePatterns = new ArrayList<>();
 
+    /**
+     * Glob patterns of the paths which should be ignored during watch. The patterns are relative to the watched source
+     * directories, e.g. {@code src/main/webapp}. Directories matching a pattern are not watched at all.
+     * <p>
+     * Within a path segment {@code *} matches any number of characters and {@code ?} a single character. A {@code **}
+     * segment matches any number of directories. A pattern without a {@code /} matches at any depth, e.g.
+     * {@code node_modules} ignores all {@code node_modules} directories and {@code *.map} all source maps.
+     * </p>
+     * <p>
+     * You can set the system property {@code wildfly.dev.ignore.paths} to a white space separated list of glob
+     * patterns.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.ignore.paths", alias = "ignore-paths")
+    private List<String> ignorePaths = new ArrayList<>();
+
+    /**
+     * The time, in milliseconds, to wait for further changes before acting on a change. All changes detected within
+     * this quiet period are merged and result in at most a single compile, package and redeploy cycle. This avoids
+     * redeploying the application once per file when many files change at once, for example after a
+     * {@code git checkout}.
+     * <p>
+     * A value of {@code 0} or less disables the coalescing of changes.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.quiet.period", alias = "quiet-period", defaultValue = "300")
+    private long quietPeriod;
+
+    /**
+     * Indicates whether changes should be copied directly into the exploded deployment rather than executing the
+     * {@code maven-war-plugin} for each change. Only the files which changed are copied or deleted.
+     * <p>
+     * The {@code maven-war-plugin} is still used if the WAR plugin configuration requires processing which cannot be
+     * done incrementally, for example overlays, web resources or filtering, or when deploying to a remote server.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.incremental.sync", alias = "incremental-sync", defaultValue = "true")
+    private boolean incrementalSync;
+
+    /**
+     * Indicates whether changed classes should be redefined in the running server, rather than redeploying the
+     * application. This uses the debugger agent the server is started with, so {@code debug} must be enabled.
+     * <p>
+     * Only changes to the bodies of methods can be applied. If the structure of a class changed, for example a field or
+     * method was added, a class was added or removed, or a debugger is already attached to the server, the application
+     * is redeployed. Note that changes which require the deployment to be processed again, for example changing an
+     * annotation on a method, are not detected.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.hot.swap", alias = "hot-swap", defaultValue = "false")
+    private boolean hotSwap;
+
+    /**
+     * Indicates whether changed Java sources should be compiled in-process with the Java compiler of the running JDK,
+     * rather than executing the compiler plugin. Only the changed sources and the sources of the classes referencing
+     * them are compiled.
+     * <p>
+     * The compiler options are taken from the configuration of the compiler plugin. If the compiler plugin is configured
+     * to fork, to use a compiler other than {@code javac} or to use {@code annotationProcessorPaths}, the compiler
+     * plugin is used. Note that compile time constants are inlined by the compiler, so changing the value of a constant
+     * does not recompile the classes which use it. A full build is required in this case.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.incremental.compile", alias = "incremental-compile", defaultValue = "false")
+    private boolean incrementalCompile;
+
+    /**
+     * Indicates whether the duration of each phase of a reload should be written to the
+     * {@code wildfly-dev/reload-timings.jsonl} file of the build directory. Each reload is appended as a JSON object on a
+     * single line. A summary of each reload is logged regardless of this setting.
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.timings.log", alias = "timings-log", defaultValue = "false")
+    private boolean timingsLog;
+
+    /**
+     * Indicates whether pages of the application should be notified when a reload completed. A local HTTP server is
+     * started which serves a {@code /livereload.js} script. Pages including the script are reloaded once the changes
+     * have been deployed. If only stylesheets changed, the stylesheets are replaced without reloading the page.
+     * <p>
+     * Include the script in a page with
+     * {@code <script src="http://localhost:35729/livereload.js"></script>}, using the configured port.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.live.reload", alias = "live-reload", defaultValue = "false")
+    private boolean liveReload;
+
+    /**
+     * The port of the live reload server, only used if {@code liveReload} is enabled. The server only listens on the
+     * loopback address.
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.live.reload.port", alias = "live-reload-port", defaultValue = "35729")
+    private int liveReloadPort;
+
+    /**
+     * Indicates whether the JAR modules of the reactor the WAR depends on should be watched. When the sources or
+     * resources of such a module change, the module is compiled, packaged and the JAR is replaced in the
+     * {@code WEB-INF/lib} directory of the deployment.
+     * <p>
+     * The modules must be part of the reactor, e.g. {@code mvn compile wildfly:dev -pl web -am}. The dev goal is
+     * skipped for the modules of the reactor which are not a WAR. The reactor modules are not watched when deploying
+     * to a remote server.
+     * </p>
+     * <p>
+     * The JAR is packaged by the dev goal rather than the {@code maven-jar-plugin}. The manifest and the
+     * {@code includes} and {@code excludes} of the {@code maven-jar-plugin} configuration are used, other parameters
+     * are ignored.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.watch.reactor.modules", alias = "watch-reactor-modules", defaultValue = "true")
+    private boolean watchReactorModules;
+
+    /**
+     * Indicates whether the running server should be reloaded, rather than restarted, when the discovered layers change
+     * and the server has been provisioned again. The installation is updated while the server is running and the
+     * server is reloaded with the new configuration, which avoids starting a new JVM.
+     * <p>
+     * If modules of the running server had to be replaced, or the installation could not be updated while the server
+     * is running, e.g. because files are locked, the server is restarted.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(property = "wildfly.dev.reload.on.reprovision", alias = "reload-on-reprovision", defaultValue = "false")
+    private boolean reloadOnReprovision;
+
     /**
      * If set to {@code true} a server will not be provisioned or started and the application will be deployed to a
      * remote server.
@@ -402,11 +600,45 @@ public class DevMojo extends AbstractServerStartMojo {
 
     // Lazily loaded list of patterns based on the ignorePatterns
     private final List<Pattern> ignoreUpdatePatterns = new ArrayList<>();
+    // Lazily compiled from the ignorePaths
+    private IgnoreMatcher ignoreMatcher;
     // Lazy loaded
     private final Set<String> allowedWarPluginParams = new HashSet<>();
 
     private String warGoal = MAVEN_EXPLODED_GOAL;
+    // Lazy loaded
+    private ExplodedWarSync warSync;
+    private ClassOutputIndex classIndex;
+    private ClassHotSwapper hotSwapper;
+    private IncrementalCompiler incrementalCompiler;
+    private boolean incrementalCompilerResolved;
+    private List<ReactorModule> reactorModules;
+    // The JARs of the reactor modules packaged by this goal, the artifacts of the modules are not changed
+    private final Set<Path> reactorModuleJars = new LinkedHashSet<>();
+    private WatchRegistry watchRegistry;
+    private final Map<Path, WatchHandler> watchRoots = new LinkedHashMap<>();
+    // Updated with the changes of each batch which has been processed successfully
+    private volatile SourceSnapshot sourceSnapshot;
+    private String modelFingerprint;
+    private ReloadTimings reloadTimings;
+    private ReloadTimings.Cycle cycle;
+    private MojoExecutionCache mojoExecutionCache;
     private ScanResults results;
+    private GlowInputIndex glowInputs;
+    private String scanFingerprint;
+    // The layer discovery results by the fingerprint of their inputs, the least recently used results are closed
+    private final Map<String, ScanResults> scanResultsCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ScanResults> eldest) {
+            if (size() > MAX_CACHED_SCAN_RESULTS) {
+                if (eldest.getValue() != results) {
+                    closeScanResults(eldest.getValue());
+                }
+                return true;
+            }
+            return false;
+        }
+    };
     private boolean requiresWarDeletion;
     private Logger mavenJBossLogger;
 
@@ -414,6 +646,12 @@ public class DevMojo extends AbstractServerStartMojo {
     public void execute() throws MojoExecutionException, MojoFailureException {
         final var packageType = PackageType.resolve(project);
         if (!"war".equalsIgnoreCase(packageType.getPackaging())) {
+            if (watchReactorModules && mavenSession.getProjects().size() > 1) {
+                // The other modules of the reactor are watched by the dev goal of the WAR module
+                getLog().info(String.format("Skipping the dev goal for %s, it only works for WAR deployments",
+                        project.getId()));
+                return;
+            }
             throw new MojoExecutionException("The dev goal only works for WAR deployments");
         }
         mavenJBossLogger = new MavenJBossLogger(getLog());
@@ -436,9 +674,16 @@ public class DevMojo extends AbstractServerStartMojo {
         try {
             // Do we need to build first?
             if (needsCompile()) {
-                triggerResources();
-                triggerCompile();
-                triggerWarGoal();
+                if (isUpToDate()) {
+                    getLog().info(String.format("No changes since the previous session, skipping the build of %s",
+                            resolveWarLocation()));
+                } else {
+                    // The snapshot is taken before the build, so changes made during the build are detected next time
+                    takeSourceSnapshot();
+                    triggerResources();
+                    triggerCompile();
+                    triggerWarGoal();
+                }
                 // If WildFly Glow is enabled, we need to provision the server
                 if (isDiscoveryEnabled()) {
                     init();
@@ -455,12 +700,11 @@ public class DevMojo extends AbstractServerStartMojo {
                 context = startServer(ServerType.STANDALONE);
             }
             try (final WatchService watcher = FileSystems.getDefault().newWatchService()) {
-                final CompiledSourceHandler sourceHandler = new CompiledSourceHandler();
-                registerDir(watcher, Path.of(project.getBuild().getSourceDirectory()), sourceHandler);
-                for (Resource resource : project.getResources()) {
-                    registerDir(watcher, Path.of(resource.getDirectory()), new ResourceHandler());
+                watchRegistry = new WatchRegistry(watcher, this::isExcludedDirectory, getLog());
+                for (Map.Entry<Path, WatchHandler> root : getWatchRoots().entrySet()) {
+                    watchRegistry.registerTree(root.getKey(), root.getValue());
                 }
-                registerDir(watcher, resolveWebAppSourceDir(), new WebAppResourceHandler(webExtensions));
+                debug("Watching %d directories", watchRegistry.size());
                 try (ModelControllerClient client = createClient()) {
                     final StandaloneManager serverManager = ServerManager.builder().client(client).standalone();
                     if (!serverManager.isRunning()) {
@@ -502,6 +746,17 @@ public class DevMojo extends AbstractServerStartMojo {
                         if (remote) {
                             getLog().info(String.format("Deployed %s", deployment));
                         }
+                        storeSourceSnapshot();
+                        classIndex = ClassOutputIndex.of(Path.of(project.getBuild().getOutputDirectory()));
+                        classIndex.update();
+                        if (hotSwap) {
+                            if (context != null && isDebugEnabled()) {
+                                hotSwapper = ClassHotSwapper.of(debugHost, debugPort, getLog());
+                            } else {
+                                getLog().warn("Hot swapping classes requires a local server started with debug enabled."
+                                        + " Changed classes will be redeployed.");
+                            }
+                        }
                         watch(watcher, deploymentManager, deployment);
                     } finally {
                         deploymentManager.undeploy(UndeployDescription.of(deployment));
@@ -564,35 +819,62 @@ public class DevMojo extends AbstractServerStartMojo {
         this.ignorePatterns = Utils.splitArguments(ignorePatterns);
     }
 
+    /**
+     * Allows the {@linkplain #ignorePaths} to be set as a string.
+     *
+     * @param ignorePaths a whitespace delimited string for the glob patterns
+     */
+    @SuppressWarnings("unused")
+    public void setIgnorePaths(final String ignorePaths) {
+        this.ignorePaths = Utils.splitArguments(ignorePaths);
+    }
+
     private boolean isDiscoveryEnabled() {
         return discoverProvisioningInfo != null;
     }
 
-    GalleonProvisioningConfig shouldReprovision() {
+    GalleonProvisioningConfig shouldReprovision(final Collection<Path> changedFiles) {
         // Remote or no initial Glow scanning
         if (remote || results == null) {
             return null;
         }
         try {
-            GalleonBuilder galleonBuilder = new GalleonBuilder();
-            galleonBuilder.addArtifactResolver(mavenRepoManager);
-            ScanResults newResults = scanDeployment(galleonBuilder);
+            glowInputs.update(changedFiles);
+            final String fingerprint = glowInputs.fingerprint();
+            if (fingerprint.equals(scanFingerprint)) {
+                debug("The inputs of the layer discovery did not change, skipping the scan of the deployment");
+                return null;
+            }
+            ScanResults newResults = scanResultsCache.get(fingerprint);
+            if (newResults == null) {
+                GalleonBuilder galleonBuilder = new GalleonBuilder();
+                galleonBuilder.addArtifactResolver(mavenRepoManager);
+                newResults = scanDeployment(galleonBuilder);
+                scanResultsCache.put(fingerprint, newResults);
+            } else {
+                debug("Reusing the layer discovery results of a previous scan with the same inputs");
+            }
+            final ScanResults previousResults = results;
+            results = newResults;
+            scanFingerprint = fingerprint;
             try {
-                if (!results.getDecorators().equals(newResults.getDecorators())) {
+                if (!previousResults.getDecorators().equals(newResults.getDecorators())) {
                     getLog().info("Set of discovered layers changed, needs to re-provision. New layers: "
                             + newResults.getDecorators());
+                    logLayerChanges(previousResults.getProvisioningConfig(), newResults.getProvisioningConfig());
                     return newResults.getProvisioningConfig();
                 }
-                if (!results.getExcludedLayers().equals(newResults.getExcludedLayers())) {
+                if (!previousResults.getExcludedLayers().equals(newResults.getExcludedLayers())) {
                     getLog().info("Set of discovered excluded layers changed, needs to re-provision. New layers: "
                             + newResults.getExcludedLayers());
+                    logLayerChanges(previousResults.getProvisioningConfig(), newResults.getProvisioningConfig());
                     return newResults.getProvisioningConfig();
                 }
             } finally {
-                if (results != null) {
-                    results.close();
+                // The results were not closed when evicted from the cache while in use
+                if (previousResults != newResults && !scanResultsCache.containsValue(previousResults)) {
+                    closeScanResults(previousResults);
                 }
-                results = newResults;
             }
         } catch (Exception ex) {
             getLog().error(ex);
@@ -600,29 +882,119 @@ public class DevMojo extends AbstractServerStartMojo {
         return null;
     }
 
-    boolean reprovisionAndStart()
+    private void logLayerChanges(final GalleonProvisioningConfig previous, final GalleonProvisioningConfig current)
+            throws ProvisioningException {
+        final Set<String> previousLayers = getIncludedLayers(previous);
+        final Set<String> currentLayers = getIncludedLayers(current);
+        final Set<String> added = new TreeSet<>(currentLayers);
+        added.removeAll(previousLayers);
+        final Set<String> removed = new TreeSet<>(previousLayers);
+        removed.removeAll(currentLayers);
+        getLog().info(String.format("Layers added: %s, layers removed: %s", added, removed));
+    }
+
+    private static Set<String> getIncludedLayers(final GalleonProvisioningConfig config) throws ProvisioningException {
+        final Set<String> result = new TreeSet<>();
+        for (GalleonConfigurationWithLayers c : config.getDefinedConfigs()) {
+            result.addAll(c.getIncludedLayers());
+        }
+        return result;
+    }
+
+    boolean reprovisionAndStart(final Collection<Path> changedFiles)
             throws IOException, InterruptedException, MojoExecutionException, MojoFailureException, ProvisioningException {
-        GalleonProvisioningConfig newConfig = shouldReprovision();
+        final GalleonProvisioningConfig newConfig;
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.SCAN)) {
+            newConfig = shouldReprovision(changedFiles);
+        }
         if (newConfig == null) {
             return false;
         }
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PROVISION)) {
+            reprovision(newConfig);
+        }
+        return true;
+    }
+
+    private void reprovision(final GalleonProvisioningConfig newConfig)
+            throws IOException, MojoExecutionException, MojoFailureException, ProvisioningException {
         final Path jbossHome = resolveJBossHome();
         debug("Changes in layers detected, must re-provision the server");
-        try (ModelControllerClient client = createClient()) {
-            ServerManager.builder().client(client).standalone().shutdown();
-            debug("Deleting existing installation " + jbossHome);
-            deleteRecursively(jbossHome);
-        }
+        // Provision the new server in a staging directory while the current server is still running. The current
+        // installation is then updated with the files which differ, which keeps the server down only for the update.
+        final Path stagingDir = Path.of(project.getBuild().getDirectory(), DEV_DIRECTORY, STAGING_SERVER_DIRECTORY);
+        deleteRecursively(stagingDir);
         GalleonBuilder galleonBuilder = new GalleonBuilder();
         galleonBuilder.addArtifactResolver(mavenRepoManager);
         ProvisioningBuilder builder = galleonBuilder.newProvisioningBuilder(newConfig);
         try (Provisioning pm = builder
-                .setInstallationHome(jbossHome)
+                .setInstallationHome(stagingDir)
                 .setMessageWriter(new MvnMessageWriter(getLog()))
                 .build()) {
-            provisionServer(pm, newConfig);
+            provisionServer(pm, newConfig, stagingDir);
+        }
+        if (reloadOnReprovision && updateAndReload(jbossHome, stagingDir)) {
+            return;
+        }
+        try (ModelControllerClient client = createClient()) {
+            ServerManager.builder().client(client).standalone().shutdown();
+        }
+        final long start = System.currentTimeMillis();
+        try {
+            final InstallationUpdater update = InstallationUpdater.update(stagingDir, jbossHome, PRESERVED_SERVER_PATHS);
+            getLog().info(String.format("Updated the server in %s in %d ms: %s", jbossHome,
+                    System.currentTimeMillis() - start, update.summary()));
+        } catch (IOException e) {
+            // The installation may have been partially updated, replace it with the newly provisioned installation
+            getLog().warn(String.format("Failed to update the server in %s, replacing the installation: %s", jbossHome, e));
+            deleteRecursively(jbossHome);
+            IoUtils.copy(stagingDir, jbossHome);
         }
+        deleteRecursively(stagingDir);
         startServer(ServerType.STANDALONE);
+    }
+
+    /**
+     * Updates the installation of the running server and reloads the server.
+     *
+     * @param jbossHome  the installation of the running server
+     * @param stagingDir the newly provisioned installation
+     *
+     * @return {@code true} if the server was reloaded, {@code false} if the server must be restarted
+     */
+    private boolean updateAndReload(final Path jbossHome, final Path stagingDir)
+            throws IOException, MojoExecutionException {
+        final long start = System.currentTimeMillis();
+        final InstallationUpdater update;
+        try {
+            update = InstallationUpdater.update(stagingDir, jbossHome, PRESERVED_SERVER_PATHS);
+        } catch (IOException e) {
+            // The server is not reloaded with a partially updated installation. The staging directory is kept, so the
+            // installation can be updated again, or replaced, once the server has been stopped.
+            getLog().warn(String.format("Failed to update the running server in %s, restarting the server: %s",
+                    jbossHome, e));
+            return false;
+        }
+        getLog().info(String.format("Updated the running server in %s in %d ms: %s", jbossHome,
+                System.currentTimeMillis() - start, update.summary()));
+        // Classes of loaded modules cannot be replaced by a reload
+        if (update.isReplaced(Path.of("modules")) || update.isReplaced(Path.of("jboss-modules.jar"))) {
+            getLog().info("Modules of the running server have been replaced, restarting the server.");
+            return false;
+        }
+        try (ModelControllerClient client = createClient()) {
+            final StandaloneManager manager = ServerManager.builder().client(client).standalone();
+            manager.executeReload(Operations.createOperation("reload"));
+            if (!manager.waitFor(getStartupTimeout(), TimeUnit.SECONDS)) {
+                throw new MojoExecutionException(
+                        String.format("Server failed to reload in %s seconds.", getStartupTimeout()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted waiting for the server to reload.", e);
+        }
+        deleteRecursively(stagingDir);
+        getLog().info(String.format("Reloaded the server in %d ms", System.currentTimeMillis() - start));
         return true;
     }
 
@@ -657,6 +1029,15 @@ public class DevMojo extends AbstractServerStartMojo {
                 } else {
                     results = scanDeployment(provider);
                     config = results.getProvisioningConfig();
+                    final List<Path> classesDirectories = new ArrayList<>();
+                    classesDirectories.add(Path.of(project.getBuild().getOutputDirectory()));
+                    for (ReactorModule module : getReactorModules()) {
+                        classesDirectories.add(module.outputDirectory());
+                    }
+                    glowInputs = GlowInputIndex.of(classesDirectories, resolveWebAppSourceDir());
+                    glowInputs.rebuild();
+                    scanFingerprint = glowInputs.fingerprint();
+                    scanResultsCache.put(scanFingerprint, results);
                 }
             }
             getLog().info("Provisioning server in " + installDir);
@@ -703,9 +1084,8 @@ public class DevMojo extends AbstractServerStartMojo {
                 serverConfig == null ? STANDALONE_XML : serverConfig);
     }
 
-    private void provisionServer(Provisioning pm, GalleonProvisioningConfig config)
+    private void provisionServer(Provisioning pm, GalleonProvisioningConfig config, Path installDir)
             throws ProvisioningException, MojoExecutionException {
-        final Path installDir = resolveJBossHome();
         getLog().info("Provisioning server in " + installDir);
         PluginProgressTracker.initTrackers(pm, mavenJBossLogger);
         pm.provision(config);
@@ -717,197 +1097,1009 @@ public class DevMojo extends AbstractServerStartMojo {
         }
     }
 
-    private boolean registerDir(final WatchService watcher, final Path dir, final WatchHandler handler) throws IOException {
-        if (Files.exists(dir) && Files.isDirectory(dir)) {
-            final int currentSize = watchedDirectories.size();
-            final Set<Path> registered = watchedDirectories.values()
-                    .stream()
-                    .map(WatchContext::directory)
-                    .collect(Collectors.toCollection(HashSet::new));
-            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (!project.getBuild().getOutputDirectory().equals(dir.toString())) {
-                        if (registered.add(dir)) {
-                            final WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
-                            watchedDirectories.put(key, WatchContext.of(dir, handler));
-                            debug("Watching for changes in %s", dir);
-                        }
-                        return FileVisitResult.CONTINUE;
-                    } else {
-                        return FileVisitResult.SKIP_SUBTREE;
+    private void watch(final WatchService watcher, final DeploymentManager deploymentManager, final Deployment deployment) {
+        // The watch events are collected on a separate thread, so changes made while a reload is in progress are merged
+        // into a single batch. The Maven goals are executed on this thread as Maven requires the session of this thread.
+        final PendingChanges pendingChanges = new PendingChanges();
+        reloadTimings = ReloadTimings.of(timingsLog ? Path.of(project.getBuild().getDirectory(), DEV_DIRECTORY,
+                RELOAD_TIMINGS_FILE) : null);
+        final Thread collector = new Thread(() -> collectChanges(watcher, pendingChanges), "wildfly-dev-watcher");
+        collector.setDaemon(true);
+        collector.start();
+        try (LiveReloadServer liveReloadServer = startLiveReloadServer()) {
+            ChangeBatch batch;
+            while ((batch = pendingChanges.take()) != null) {
+                debug("Processing %d changed file(s): %s", batch.size(), batch);
+                cycle = reloadTimings.start(batch);
+                ReloadTimings.Outcome outcome = ReloadTimings.Outcome.FAILED;
+                try {
+                    final boolean applied = process(batch, pendingChanges, deploymentManager, deployment);
+                    updateSourceSnapshot(batch);
+                    outcome = ReloadTimings.Outcome.COMPLETED;
+                    // The pages are only reloaded if the deployment was changed
+                    if (liveReloadServer != null && applied) {
+                        notifyLiveReload(liveReloadServer, batch);
                     }
+                } catch (CancellationException ex) {
+                    debug("Newer changes have been detected, restarting the reload with all changes");
+                    pendingChanges.requeue(batch);
+                    outcome = ReloadTimings.Outcome.SUPERSEDED;
+                } catch (Exception ex) {
+                    getLog().error("Exception handling file change: " + ex);
+                    // The changes of the failed cycle, e.g. static files not copied yet, are applied with the next changes
+                    pendingChanges.retain(batch);
+                } finally {
+                    completeCycle(outcome);
                 }
-            });
-            return currentSize == watchedDirectories.size();
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted during watch.", e);
+        } finally {
+            pendingChanges.close();
+            collector.interrupt();
+            closeScanResults();
         }
-        return false;
+    }
+
+    private LiveReloadServer startLiveReloadServer() {
+        if (!liveReload) {
+            return null;
+        }
+        try {
+            final LiveReloadServer server = LiveReloadServer.start(liveReloadPort, getLog());
+            getLog().info(String.format("Live reload enabled, include %s in the pages of the application",
+                    server.scriptUrl()));
+            return server;
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to start the live reload server on port %d: %s", liveReloadPort, e));
+            return null;
+        }
+    }
+
+    private void notifyLiveReload(final LiveReloadServer server, final ChangeBatch batch) {
+        // Changes to static web resources are sent with their path in the application, other changes reload the page
+        final Path webAppDir = resolveWebAppSourceDir();
+        final Set<String> paths = new TreeSet<>();
+        boolean reload = batch.hasDeletions();
+        for (Path file : batch.changedFiles()) {
+            if (file.startsWith(webAppDir)) {
+                final StringBuilder path = new StringBuilder();
+                for (Path segment : webAppDir.relativize(file)) {
+                    path.append('/').append(segment);
+                }
+                paths.add(path.toString());
+            } else {
+                reload = true;
+            }
+        }
+        server.notifyClients(paths, reload);
+    }
+
+    private void completeCycle(final ReloadTimings.Outcome outcome) {
+        try {
+            final String summary = reloadTimings.complete(cycle, outcome);
+            if (outcome == ReloadTimings.Outcome.SUPERSEDED) {
+                debug(summary);
+            } else {
+                getLog().info(summary);
+            }
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to write the reload timings: %s", e));
+        } finally {
+            cycle = null;
+        }
+    }
+
+    private ReloadTimings.Timer measure(final ReloadTimings.Phase phase) {
+        // Build steps executed outside a reload cycle, e.g. the initial build, are not measured
+        return cycle == null ? () -> {
+        } : cycle.measure(phase);
     }
 
     @SuppressWarnings("InfiniteLoopStatement")
-    private void watch(final WatchService watcher, final DeploymentManager deploymentManager, final Deployment deployment) {
-        final var projectDir = project.getBasedir().toPath();
+    private void collectChanges(final WatchService watcher, final PendingChanges pendingChanges) {
         try {
             for (;;) {
+                final ChangeBatch batch = new ChangeBatch();
                 WatchKey key = watcher.take();
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    WatchEvent.Kind<?> kind = event.kind();
-                    if (kind == OVERFLOW) {
-                        continue;
+                // Keep collecting events until the quiet period elapses without any new events. The window is capped
+                // so a tool which constantly writes to a watched directory cannot postpone a reload forever.
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(quietPeriod * MAX_QUIET_PERIODS);
+                boolean overflow = false;
+                while (key != null) {
+                    overflow |= collect(key, batch);
+                    if (!key.reset()) {
+                        // The directory is no longer accessible, e.g. it was deleted
+                        watchRegistry.cancel(key);
                     }
-                    @SuppressWarnings("unchecked")
-                    final WatchEvent<Path> ev = (WatchEvent<Path>) event;
-                    debug("File changed [%s]: %s", ev.kind().name(), ev.context());
-                    final Path absolutePath = getPath(key, ev.context());
-                    if (absolutePath == null) {
-                        continue;
+                    if (quietPeriod <= 0 || System.nanoTime() - deadline > 0) {
+                        break;
                     }
-                    final var eventPath = absolutePath.getFileName();
-                    try {
-                        if (isIgnoredChange(eventPath)) {
-                            debug("Ignoring change for %s", eventPath);
-                            continue;
-                        }
-                    } catch (IOException ex) {
-                        debug("Failed checking %s for ignored state: %s", eventPath, ex);
+                    key = watcher.poll(quietPeriod, TimeUnit.MILLISECONDS);
+                }
+                if (overflow) {
+                    rescan(batch);
+                }
+                pendingChanges.submit(batch);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            // OK Can ignore, we have been closed by shutdown hook.
+        } catch (RuntimeException ex) {
+            getLog().error("Exception watching for file changes: " + ex);
+        } finally {
+            pendingChanges.close();
+        }
+    }
+
+    /**
+     * Collects the pending events of the key into the batch.
+     *
+     * @param key   the key to collect the events for
+     * @param batch the batch to add the changes to
+     *
+     * @return {@code true} if events have been lost and the sources need to be rescanned
+     */
+    private boolean collect(final WatchKey key, final ChangeBatch batch) {
+        final var projectDir = project.getBasedir().toPath();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            final WatchEvent<Path> ev = (WatchEvent<Path>) event;
+            debug("File changed [%s]: %s", ev.kind().name(), ev.context());
+            final Path absolutePath = getPath(key, ev.context());
+            if (absolutePath == null) {
+                continue;
+            }
+            final var eventPath = absolutePath.getFileName();
+            try {
+                if (isIgnoredChange(absolutePath)) {
+                    debug("Ignoring change for %s", eventPath);
+                    continue;
+                }
+            } catch (IOException ex) {
+                debug("Failed checking %s for ignored state: %s", eventPath, ex);
+            }
+            try {
+                final var context = watchRegistry.get(key);
+                if (context == null) {
+                    getLog().warn(String.format("Failed to find context for %s", ev.context()));
+                    continue;
+                }
+                final var relativePath = projectDir.relativize(absolutePath);
+                if (ev.kind() == ENTRY_DELETE) {
+                    debug("Source file deleted: %s", relativePath);
+                    batch.addDeletion(absolutePath, context.handle(ev, absolutePath));
+                    if (Files.notExists(context.directory())) {
+                        watchRegistry.cancel(key);
                     }
-                    try {
-                        final var context = watchedDirectories.get(key);
-                        if (context == null) {
-                            getLog().warn(String.format("Failed to find context for %s", ev.context()));
-                            continue;
-                        }
-                        final var relativePath = projectDir.relativize(absolutePath);
-                        if (ev.kind() == ENTRY_DELETE) {
-                            // Undeploy application as Windows won't be able to delete the directory
-                            DeploymentResult deploymentResult = deploymentManager.undeploy(UndeployDescription.of(deployment));
-                            if (!deploymentResult.successful()) {
-                                getLog().warn(String.format(
-                                        "Failed to undeploy application. Unexpected results may occur. Failure: %s",
-                                        deploymentResult.getFailureMessage()));
-                            } else {
-                                // Clean the deployment directory if that is a first update and no compilation occured
-                                // meaning that is a war file, not an exploded directory.
-                                final Path path = resolveWarLocation();
-                                deleteRecursively(path);
-                                triggerResources();
-                                triggerCompile();
-                                triggerWarGoal();
-                                deploymentResult = deploymentManager.deploy(deployment);
-                                if (!deploymentResult.successful()) {
-                                    throw new MojoExecutionException(
-                                            "Failed to deploy content: " + deploymentResult.getFailureMessage());
-                                }
-                                if (Files.notExists(context.directory())) {
-                                    watchedDirectories.remove(key);
-                                    key.cancel();
-                                }
-                                continue;
-                            }
-                        } else if (ev.kind() == ENTRY_CREATE) {
-                            // If this is a directory we need to add the directory
-                            if (Files.isDirectory(eventPath)) {
-                                if (registerDir(watcher, eventPath, context.handler())) {
-                                    debug("New directory registered: %s", relativePath);
-                                }
-                            } else {
-                                final Path parent = absolutePath.getParent();
-                                if (parent != null) {
-                                    if (registerDir(watcher, parent, context.handler())) {
-                                        debug("New directory registered: %s", relativePath);
-                                    }
-                                }
-                                debug("A new source file has been created: %s", relativePath);
-                            }
-                        } else if (ev.kind() == ENTRY_MODIFY) {
-                            debug("Source file modified: %s", relativePath);
-                        }
-                        // Handle the file
-                        final var result = context.handle(ev, absolutePath);
-                        if (result.requiresRecompile()) {
-                            triggerCompile();
-                        }
-                        if (result.requiresCopyResources()) {
-                            triggerResources();
-                        }
-                        boolean repackaged = false;
-                        if (remote || result.requiresRepackage()) {
-                            // If !remote, the first packaging was not an exploded war, clean it.
-                            if (requiresWarDeletion) {
-                                final Path path = resolveWarLocation();
-                                DeploymentResult deploymentResult = deploymentManager
-                                        .undeploy(UndeployDescription.of(deployment));
-                                if (!deploymentResult.successful()) {
-                                    getLog().warn(String.format(
-                                            "Failed to undeploy application. Unexpected results may occur. Failure: %s",
-                                            deploymentResult.getFailureMessage()));
-                                }
-                                deleteRecursively(path);
-                                requiresWarDeletion = false;
-                                repackaged = true;
-                            }
-                            triggerWarGoal();
-                        }
-                        boolean reprovisioned = false;
-                        if (!remote) {
-                            reprovisioned = reprovisionAndStart();
+                    continue;
+                } else if (ev.kind() == ENTRY_CREATE) {
+                    // If this is a directory we need to add the directory and any directories created within it
+                    if (Files.isDirectory(absolutePath)) {
+                        final int registered = watchRegistry.registerTree(absolutePath, context.handler());
+                        if (registered > 0) {
+                            debug("%d new directories registered: %s", registered, relativePath);
                         }
-                        if (remote || result.requiresRedeploy() || repackaged || reprovisioned) {
-                            final DeploymentResult deploymentResult;
-                            if (remote) {
-                                // If we are deploying an archive, we need to redeploy the full WAR
-                                deploymentResult = deploymentManager
-                                        .redeploy(deployment);
-                            } else {
-                                if (reprovisioned || repackaged) {
-                                    deploymentResult = deploymentManager
-                                            .forceDeploy(deployment);
-                                } else {
-                                    deploymentResult = deploymentManager
-                                            .redeployToRuntime(deployment);
-                                }
-                            }
-                            if (!deploymentResult.successful()) {
-                                throw new MojoExecutionException(
-                                        "Failed to deploy content: " + deploymentResult.getFailureMessage());
-                            }
+                    } else {
+                        final Path parent = absolutePath.getParent();
+                        if (parent != null && watchRegistry.register(parent, context.handler())) {
+                            debug("New directory registered: %s", projectDir.relativize(parent));
                         }
-                    } catch (Exception ex) {
-                        getLog().error("Exception handling file change: " + ex);
+                        debug("A new source file has been created: %s", relativePath);
                     }
+                } else if (ev.kind() == ENTRY_MODIFY) {
+                    debug("Source file modified: %s", relativePath);
                 }
-                key.reset();
+                // Handle the file, the results are merged into the batch
+                batch.add(absolutePath, context.handle(ev, absolutePath));
+            } catch (Exception ex) {
+                getLog().error("Exception handling file change: " + ex);
+            }
+        }
+        return overflow;
+    }
+
+    /**
+     * Compares the sources with the snapshot taken after the last processed batch and adds the changes which were not
+     * reported by the watch service to the batch.
+     *
+     * @param batch the batch to add the changes to
+     */
+    private void rescan(final ChangeBatch batch) {
+        try {
+            final SourceSnapshot current = scanSources();
+            final SourceSnapshot.Diff diff = sourceSnapshot.diff(current);
+            getLog().warn(String.format("File system events were lost, rescanned the sources and found %d created, "
+                    + "%d modified and %d deleted file(s).", diff.created().size(), diff.modified().size(),
+                    diff.deleted().size()));
+            // Directories may have been created without an event being received
+            for (Map.Entry<Path, WatchHandler> root : getWatchRoots().entrySet()) {
+                watchRegistry.registerTree(root.getKey(), root.getValue());
+            }
+            for (Path file : diff.created()) {
+                addSynthesizedChange(batch, ENTRY_CREATE, file);
+            }
+            for (Path file : diff.modified()) {
+                addSynthesizedChange(batch, ENTRY_MODIFY, file);
+            }
+            for (Path file : diff.deleted()) {
+                addSynthesizedChange(batch, ENTRY_DELETE, file);
+            }
+            // The snapshot is only updated with the changes of the batch once the batch has been processed successfully
+        } catch (Exception ex) {
+            getLog().error("Exception rescanning the sources: " + ex);
+        }
+    }
+
+    private void addSynthesizedChange(final ChangeBatch batch, final WatchEvent.Kind<Path> kind, final Path file)
+            throws IOException, MojoExecutionException {
+        final WatchHandler handler = findWatchHandler(file);
+        final Path parent = file.getParent();
+        if (handler == null || parent == null || isIgnoredChange(file)) {
+            return;
+        }
+        debug("File changed [%s]: %s", kind.name(), file);
+        final WatchHandler.Result result = handler.handle(WatchContext.of(parent, handler),
+                SourceSnapshot.event(kind, file.getFileName()), file);
+        if (kind == ENTRY_DELETE) {
+            batch.addDeletion(file, result);
+        } else {
+            batch.add(file, result);
+        }
+    }
+
+    private WatchHandler findWatchHandler(final Path file) {
+        final Path root = findWatchRoot(file);
+        return root == null ? null : getWatchRoots().get(root);
+    }
+
+    private Path findWatchRoot(final Path file) {
+        Path result = null;
+        // Find the most specific root, as the source directories may be nested
+        for (Path root : getWatchRoots().keySet()) {
+            if (file.startsWith(root) && (result == null || root.getNameCount() > result.getNameCount())) {
+                result = root;
+            }
+        }
+        return result;
+    }
+
+    private Map<Path, WatchHandler> getWatchRoots() {
+        if (watchRoots.isEmpty()) {
+            watchRoots.put(Path.of(project.getBuild().getSourceDirectory()), new CompiledSourceHandler());
+            for (Resource resource : project.getResources()) {
+                watchRoots.put(Path.of(resource.getDirectory()), new ResourceHandler());
+            }
+            watchRoots.put(resolveWebAppSourceDir(), new WebAppResourceHandler(webExtensions));
+            for (ReactorModule module : getReactorModules()) {
+                for (Path dir : module.sourceDirectories()) {
+                    watchRoots.put(dir, new ReactorModuleHandler());
+                }
+            }
+        }
+        return watchRoots;
+    }
+
+    private List<ReactorModule> getReactorModules() {
+        if (reactorModules == null) {
+            reactorModules = watchReactorModules && !remote ? ReactorModule.discover(project, mavenSession.getProjects())
+                    : List.of();
+            if (!reactorModules.isEmpty()) {
+                getLog().info(String.format("Watching reactor module(s) %s", reactorModules));
+            }
+        }
+        return reactorModules;
+    }
+
+    private Path getReactorModulesDirectory() {
+        return Path.of(project.getBuild().getDirectory(), DEV_DIRECTORY, REACTOR_MODULES_DIRECTORY);
+    }
+
+    private boolean isReactorModuleChange(final Path file) {
+        for (ReactorModule module : getReactorModules()) {
+            if (module.contains(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles and packages the reactor modules with changed sources or resources.
+     *
+     * @param batch          the changes
+     * @param pendingChanges the changes detected since the batch was taken
+     *
+     * @return the JARs of the modules which were packaged
+     */
+    private List<Path> updateReactorModules(final ChangeBatch batch, final PendingChanges pendingChanges)
+            throws MojoExecutionException, IOException {
+        final List<ReactorModule> changed = new ArrayList<>();
+        for (ReactorModule module : getReactorModules()) {
+            if (isChanged(module, batch)) {
+                changed.add(module);
+            }
+        }
+        if (changed.isEmpty()) {
+            return List.of();
+        }
+        for (ReactorModule module : changed) {
+            triggerResources(module.project());
+            triggerCompile(module.project());
+        }
+        checkSuperseded(pendingChanges);
+        final List<Path> jars = new ArrayList<>();
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PACKAGE)) {
+            for (ReactorModule module : changed) {
+                jars.add(module.writeJar(getReactorModulesDirectory(), getJarPluginConfig(module)));
+            }
+        }
+        reactorModuleJars.addAll(jars);
+        debug("Packaged reactor module(s) %s", changed);
+        return jars;
+    }
+
+    private boolean isChanged(final ReactorModule module, final ChangeBatch batch) {
+        return batch.changedFiles().stream().anyMatch(module::contains)
+                || batch.deletedFiles().stream().anyMatch(module::contains);
+    }
+
+    private Xpp3Dom getJarPluginConfig(final ReactorModule module) throws MojoExecutionException {
+        final Plugin jarPlugin = module.project().getPlugin(ORG_APACHE_MAVEN_PLUGINS + ":" + MAVEN_JAR_PLUGIN);
+        return jarPlugin == null ? null : getPluginConfig(jarPlugin, MAVEN_JAR_GOAL);
+    }
+
+    /**
+     * Copies the JARs of the reactor modules packaged by this goal into the exploded deployment. The
+     * {@code maven-war-plugin} packages the artifacts of the modules, which do not include the changes.
+     */
+    private void copyReactorModuleJars(final Plugin warPlugin) throws MojoExecutionException {
+        final Path libDirectory = resolveWarLocation().resolve("WEB-INF").resolve("lib");
+        // The JARs are named with the default mapping of the maven-war-plugin
+        if (reactorModuleJars.isEmpty() || !Files.isDirectory(libDirectory)
+                || getConfigValue(getWarPluginConfig(warPlugin), "outputFileNameMapping") != null) {
+            return;
+        }
+        try {
+            for (Path jar : reactorModuleJars) {
+                Files.copy(jar, libDirectory.resolve(jar.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to copy the reactor modules to " + libDirectory, e);
+        }
+    }
+
+    private void syncReactorModules(final List<Path> jars) throws IOException {
+        if (jars.isEmpty()) {
+            return;
+        }
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PACKAGE)) {
+            final ExplodedWarSync sync = getWarSync();
+            for (Path jar : jars) {
+                sync.sync(jar);
+            }
+        }
+    }
+
+    private SourceSnapshot scanSources() throws IOException {
+        final List<Path> roots = new ArrayList<>(getWatchRoots().keySet());
+        // Changes to the POM are not watched, but require a build when the goal is started again
+        roots.add(project.getFile().toPath());
+        return SourceSnapshot.scan(project.getBasedir().toPath(), getModelFingerprint(), roots, this::isExcludedDirectory);
+    }
+
+    /**
+     * Computes a fingerprint of the inputs of the build which are not source files. This includes the effective model of
+     * the project, e.g. the interpolated properties, the active profiles and the configuration of the plugins, the user
+     * properties of the session and the resolved dependencies.
+     *
+     * @return the fingerprint
+     *
+     * @throws IOException if the model could not be written
+     */
+    private String getModelFingerprint() throws IOException {
+        if (modelFingerprint == null) {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            try (Writer writer = new OutputStreamWriter(new DigestOutputStream(OutputStream.nullOutputStream(), digest),
+                    StandardCharsets.UTF_8)) {
+                new MavenXpp3Writer().write(writer, project.getModel());
+                for (Map.Entry<Object, Object> property : new TreeMap<>(mavenSession.getUserProperties()).entrySet()) {
+                    writer.write(property.getKey() + "=" + property.getValue() + "\n");
+                }
+                for (Artifact artifact : project.getArtifacts()) {
+                    writer.write(artifact.getId());
+                    final File file = artifact.getFile();
+                    if (file != null) {
+                        writer.write("|" + file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified());
+                    }
+                    writer.write('\n');
+                }
+            }
+            modelFingerprint = HexFormat.of().formatHex(digest.digest());
+        }
+        return modelFingerprint;
+    }
+
+    private boolean isExcludedDirectory(final Path dir) {
+        return dir.toString().equals(project.getBuild().getOutputDirectory()) || isIgnoredPath(dir);
+    }
+
+    private boolean isIgnoredPath(final Path file) {
+        final IgnoreMatcher matcher = getIgnoreMatcher();
+        if (matcher.isEmpty()) {
+            return false;
+        }
+        final Path root = findWatchRoot(file);
+        return root != null && !root.equals(file) && matcher.matches(root.relativize(file));
+    }
+
+    private IgnoreMatcher getIgnoreMatcher() {
+        if (ignoreMatcher == null) {
+            ignoreMatcher = IgnoreMatcher.of(ignorePaths);
+        }
+        return ignoreMatcher;
+    }
+
+    /**
+     * Checks whether the exploded deployment of a previous session is still up-to-date. The sources are compared with
+     * the snapshot stored after the last change the previous session processed.
+     *
+     * @return {@code true} if the sources did not change and the initial build can be skipped
+     */
+    private boolean isUpToDate() {
+        if (remote || !Files.isDirectory(resolveWarLocation())
+                || !Files.isDirectory(Path.of(project.getBuild().getOutputDirectory()))) {
+            return false;
+        }
+        try {
+            final SourceSnapshot previous = SourceSnapshot.load(project.getBasedir().toPath(), getSourceSnapshotFile());
+            if (previous == null) {
+                return false;
+            }
+            final SourceSnapshot current = scanSources();
+            if (!current.modelFingerprint().equals(previous.modelFingerprint())) {
+                debug("The project model or the dependencies changed since the previous session");
+                return false;
+            }
+            final SourceSnapshot.Diff diff = previous.diff(current);
+            if (!diff.isEmpty()) {
+                debug("Sources changed since the previous session: %s", diff);
+                return false;
+            }
+            sourceSnapshot = current;
+            return true;
+        } catch (IOException e) {
+            debug("Failed to check the snapshot of the previous session: %s", e);
+            return false;
+        }
+    }
+
+    private void takeSourceSnapshot() {
+        try {
+            sourceSnapshot = scanSources();
+        } catch (IOException e) {
+            debug("Failed to take a snapshot of the sources: %s", e);
+        }
+    }
+
+    private void storeSourceSnapshot() {
+        try {
+            if (sourceSnapshot == null) {
+                sourceSnapshot = scanSources();
+            }
+            sourceSnapshot.store(getSourceSnapshotFile());
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to store the snapshot of the sources: %s", e));
+        }
+    }
+
+    private void updateSourceSnapshot(final ChangeBatch batch) throws IOException {
+        final List<Path> files = new ArrayList<>(batch.changedFiles());
+        files.addAll(batch.deletedFiles());
+        sourceSnapshot.update(files, this::isExcludedDirectory);
+        sourceSnapshot.store(getSourceSnapshotFile());
+    }
+
+    private Path getSourceSnapshotFile() {
+        return Path.of(project.getBuild().getDirectory(), DEV_DIRECTORY, SOURCE_SNAPSHOT_FILE);
+    }
+
+    /**
+     * Applies the changes to the deployment.
+     *
+     * @return {@code true} if the deployment was updated, redeployed or the classes were hot swapped, {@code false} if
+     *             the changes did not affect the deployment
+     */
+    private boolean process(final ChangeBatch batch, final PendingChanges pendingChanges,
+            final DeploymentManager deploymentManager, final Deployment deployment) throws Exception {
+        // The copying of the files is measured as the package phase, each phase is measured on its own
+        if (batch.isContentUpdateOnly() && updateContent(batch, deployment)) {
+            return true;
+        }
+        if (batch.hasDeletions() && !canSyncIncrementally(batch.deletedFiles())) {
+            return rebuild(deploymentManager, deployment);
+        }
+        // The build steps are only repeated if newer changes are detected before the build output is indexed. The index
+        // is only committed once the changes have been deployed, so a failed cycle reports the same changes again.
+        final List<Path> moduleJars = updateReactorModules(batch, pendingChanges);
+        if (batch.requiresRecompile()) {
+            compile(batch);
+            checkSuperseded(pendingChanges);
+        }
+        if (batch.requiresCopyResources()) {
+            triggerResources();
+            checkSuperseded(pendingChanges);
+        }
+        final ClassOutputIndex.Changes outputChanges = (batch.requiresRecompile() || batch.requiresCopyResources())
+                ? classIndex.changes()
+                : null;
+        if (outputChanges != null) {
+            if (outputChanges.isEmpty() && !batch.hasDeletions() && isBuildOutputChangesOnly(batch)) {
+                getLog().info("The compiled classes and resources did not change, skipping the redeploy.");
+                classIndex.commit(outputChanges);
+                return false;
+            }
+            reportChanges(outputChanges);
+        }
+        boolean repackaged = false;
+        if (remote || batch.requiresRepackage() || batch.requiresContentUpdate()) {
+            // If !remote, the first packaging was not an exploded war, clean it.
+            if (requiresWarDeletion) {
+                try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PACKAGE)) {
+                    final Path path = resolveWarLocation();
+                    DeploymentResult deploymentResult = deploymentManager
+                            .undeploy(UndeployDescription.of(deployment));
+                    if (!deploymentResult.successful()) {
+                        getLog().warn(String.format(
+                                "Failed to undeploy application. Unexpected results may occur. Failure: %s",
+                                deploymentResult.getFailureMessage()));
+                    }
+                    deleteRecursively(path);
+                    requiresWarDeletion = false;
+                    repackaged = true;
+                }
+            }
+            if (!repackaged && canSyncIncrementally(batch.changedFiles())) {
+                try {
+                    syncWarDirectory(batch);
+                    syncReactorModules(moduleJars);
+                } catch (IOException e) {
+                    getLog().warn(String.format("Failed to update the exploded deployment, rebuilding it: %s", e));
+                    return rebuild(deploymentManager, deployment);
+                }
+            } else {
+                triggerWarGoal();
+            }
+        }
+        boolean reprovisioned = false;
+        if (!remote) {
+            reprovisioned = reprovisionAndStart(getChangedFiles(batch, outputChanges));
+        }
+        if (remote || batch.requiresRedeploy() || repackaged || reprovisioned) {
+            try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.DEPLOY)) {
+                if (!remote && !repackaged && !reprovisioned && hotSwap(batch, outputChanges)) {
+                    classIndex.commit(outputChanges);
+                    return true;
+                }
+                final DeploymentResult deploymentResult;
+                if (remote) {
+                    // If we are deploying an archive, we need to redeploy the full WAR
+                    deploymentResult = deploymentManager
+                            .redeploy(deployment);
+                } else {
+                    if (reprovisioned || repackaged) {
+                        deploymentResult = deploymentManager
+                                .forceDeploy(deployment);
+                    } else {
+                        deploymentResult = deploymentManager
+                                .redeployToRuntime(deployment);
+                    }
+                }
+                if (!deploymentResult.successful()) {
+                    throw new MojoExecutionException(
+                            "Failed to deploy content: " + deploymentResult.getFailureMessage());
+                }
+            }
+        }
+        if (outputChanges != null) {
+            classIndex.commit(outputChanges);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the changed files into the exploded deployment without packaging or redeploying the deployment. A remote
+     * server deploys the packaged archive, so the deployment always needs to be packaged in that case.
+     *
+     * @param batch      the changes to apply
+     * @param deployment the deployment to update
+     *
+     * @return {@code true} if the changes were applied, {@code false} if the deployment needs to be packaged
+     */
+    private boolean updateContent(final ChangeBatch batch, final Deployment deployment) {
+        if (!canSyncIncrementally(batch.changedFiles()) || !canSyncIncrementally(batch.deletedFiles())) {
+            return false;
+        }
+        try {
+            syncWarDirectory(batch);
+        } catch (IOException e) {
+            debug("Failed to copy the changed files into the exploded deployment: %s", e);
+            return false;
+        }
+        getLog().info(String.format("Updated %d file(s) in %s", batch.size(), deployment));
+        return true;
+    }
+
+    private Collection<Path> getChangedFiles(final ChangeBatch batch, final ClassOutputIndex.Changes outputChanges) {
+        final Set<Path> files = new LinkedHashSet<>(batch.changedFiles());
+        files.addAll(batch.deletedFiles());
+        if (outputChanges != null) {
+            final Path outputDir = classIndex.directory();
+            for (Set<String> names : List.of(outputChanges.added(), outputChanges.modified(), outputChanges.removed())) {
+                for (String name : names) {
+                    files.add(outputDir.resolve(name));
+                }
+            }
+        }
+        // The classes of the reactor modules are packaged into the deployment and are inputs of the layer discovery
+        for (ReactorModule module : getReactorModules()) {
+            if (isChanged(module, batch)) {
+                files.add(module.outputDirectory());
             }
-        } catch (ClosedWatchServiceException ex) {
-            // OK Can ignore, we have been closed by shutdown hook.
-        } catch (InterruptedException e) {
-            throw new RuntimeException("Interrupted during watch.", e);
         }
+        return files;
+    }
+
+    private void closeScanResults() {
+        if (results != null && !scanResultsCache.containsValue(results)) {
+            closeScanResults(results);
+        }
+        results = null;
+        scanResultsCache.values().forEach(DevMojo::closeScanResults);
+        scanResultsCache.clear();
+    }
+
+    private static void closeScanResults(final ScanResults scanResults) {
+        try {
+            scanResults.close();
+        } catch (Exception ignore) {
+        }
+    }
+
+    private static void checkSuperseded(final PendingChanges pendingChanges) {
+        if (pendingChanges.hasPending()) {
+            throw new CancellationException();
+        }
+    }
+
+    private boolean rebuild(final DeploymentManager deploymentManager, final Deployment deployment) throws Exception {
+        // Undeploy application as Windows won't be able to delete the directory
+        DeploymentResult deploymentResult = deploymentManager.undeploy(UndeployDescription.of(deployment));
+        if (!deploymentResult.successful()) {
+            getLog().warn(String.format(
+                    "Failed to undeploy application. Unexpected results may occur. Failure: %s",
+                    deploymentResult.getFailureMessage()));
+            return false;
+        } else {
+            // Clean the deployment directory if that is a first update and no compilation occured
+            // meaning that is a war file, not an exploded directory.
+            final Path path = resolveWarLocation();
+            deleteRecursively(path);
+            triggerResources();
+            triggerCompile();
+            final ClassOutputIndex.Changes outputChanges = classIndex.changes();
+            if (incrementalCompiler != null) {
+                incrementalCompiler.index();
+            }
+            if (glowInputs != null) {
+                glowInputs.rebuild();
+            }
+            triggerWarGoal();
+            try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.DEPLOY)) {
+                deploymentResult = deploymentManager.deploy(deployment);
+            }
+            if (!deploymentResult.successful()) {
+                throw new MojoExecutionException(
+                        "Failed to deploy content: " + deploymentResult.getFailureMessage());
+            }
+            classIndex.commit(outputChanges);
+            return true;
+        }
+    }
+
+    private boolean hotSwap(final ChangeBatch batch, final ClassOutputIndex.Changes changes) {
+        if (hotSwapper == null || changes == null || batch.hasDeletions() || !changes.isModifiedClassesOnly()) {
+            return false;
+        }
+        // Only changes to the Java sources can be applied without redeploying the application
+        final Path sourceDir = Path.of(project.getBuild().getSourceDirectory());
+        for (Path file : batch.changedFiles()) {
+            if (!file.startsWith(sourceDir)) {
+                return false;
+            }
+        }
+        return hotSwapper.redefine(changes.modifiedClasses());
+    }
+
+    private boolean canSyncIncrementally(final Collection<Path> files) {
+        if (!incrementalSync || remote || requiresWarDeletion || Files.notExists(resolveWarLocation())) {
+            return false;
+        }
+        final ExplodedWarSync sync = getWarSync();
+        if (sync == null) {
+            return false;
+        }
+        // Changes to the compiled sources and resources are synchronized from the output directory, changes to the
+        // reactor modules from the packaged JAR
+        final boolean modulesMapped = sync.isMapped(getReactorModulesDirectory());
+        for (Path file : files) {
+            if (!sync.isMapped(file) && !isBuildOutputChange(file) && !(modulesMapped && isReactorModuleChange(file))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBuildOutputChangesOnly(final ChangeBatch batch) {
+        for (Path file : batch.changedFiles()) {
+            if (!isBuildOutputChange(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBuildOutputChange(final Path file) {
+        return file.startsWith(Path.of(project.getBuild().getSourceDirectory())) || isResource(file);
+    }
+
+    private void reportChanges(final ClassOutputIndex.Changes changes) {
+        final Set<String> changedClasses = changes.changedClasses();
+        if (changedClasses.isEmpty()) {
+            return;
+        }
+        if (changedClasses.size() > MAX_REPORTED_CLASSES) {
+            getLog().info(String.format("%d classes changed: %s, ...", changedClasses.size(),
+                    changedClasses.stream().limit(MAX_REPORTED_CLASSES).collect(Collectors.joining(", "))));
+        } else {
+            getLog().info(String.format("%d class(es) changed: %s", changedClasses.size(),
+                    String.join(", ", changedClasses)));
+        }
+        debug("Build output changes: %s", changes);
+    }
+
+    private void syncWarDirectory(final ChangeBatch batch) throws IOException {
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PACKAGE)) {
+            syncWarDirectory(batch, getWarSync());
+        }
+    }
+
+    private void syncWarDirectory(final ChangeBatch batch, final ExplodedWarSync sync) throws IOException {
+        int updated = 0;
+        for (Path file : batch.deletedFiles()) {
+            if (sync.sync(file) != null) {
+                updated++;
+            }
+        }
+        for (Path file : batch.changedFiles()) {
+            if (sync.sync(file) != null) {
+                updated++;
+            }
+        }
+        if (batch.requiresRecompile() || batch.requiresCopyResources()) {
+            updated += sync.syncTree(Path.of(project.getBuild().getOutputDirectory())).size();
+        }
+        debug("Updated %d file(s) in exploded deployment %s", updated, sync.warDirectory());
+    }
+
+    private ExplodedWarSync getWarSync() {
+        if (warSync == null) {
+            final Plugin warPlugin = project.getPlugin(ORG_APACHE_MAVEN_PLUGINS + ":" + MAVEN_WAR_PLUGIN);
+            if (warPlugin == null || requiresWarPlugin(getWarPluginConfig(warPlugin))) {
+                getLog().info("The WAR plugin configuration requires the maven-war-plugin to update the deployment.");
+                incrementalSync = false;
+                return null;
+            }
+            warSync = ExplodedWarSync.of(resolveWarLocation())
+                    .map(resolveWebAppSourceDir(), "")
+                    .map(Path.of(project.getBuild().getOutputDirectory()), "WEB-INF/classes");
+            // The JARs are named with the default mapping of the maven-war-plugin
+            if (getConfigValue(getWarPluginConfig(warPlugin), "outputFileNameMapping") == null) {
+                warSync.map(getReactorModulesDirectory(), "WEB-INF/lib");
+            }
+        }
+        return warSync;
+    }
+
+    private boolean requiresWarPlugin(final Xpp3Dom configuration) {
+        for (Xpp3Dom child : configuration.getChildren()) {
+            if (WAR_PLUGIN_REQUIRED_PARAMETERS.contains(child.getName())) {
+                if (child.getChildCount() > 0 || (child.getValue() != null && !child.getValue().isBlank())) {
+                    debug("The WAR plugin configuration parameter %s requires the maven-war-plugin", child.getName());
+                    return true;
+                }
+            }
+        }
+        if (Boolean.parseBoolean(getConfigValue(configuration, "filteringDeploymentDescriptors"))
+                || Boolean.parseBoolean(getConfigValue(configuration, "archiveClasses"))) {
+            return true;
+        }
+        // WAR dependencies are overlaid by default
+        return project.getArtifacts().stream().anyMatch(artifact -> "war".equals(artifact.getType()));
+    }
+
+    private boolean isResource(final Path file) {
+        for (Resource resource : project.getResources()) {
+            if (file.startsWith(Path.of(resource.getDirectory()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getConfigValue(final Xpp3Dom configuration, final String name) {
+        final Xpp3Dom child = configuration.getChild(name);
+        return child == null ? null : child.getValue();
     }
 
     private void triggerCompile() throws MojoExecutionException {
+        triggerCompile(project);
+    }
+
+    private void triggerCompile(final MavenProject project) throws MojoExecutionException {
         // Compile the Java sources if needed
         final String compilerPluginKey = ORG_APACHE_MAVEN_PLUGINS + ":" + MAVEN_COMPILER_PLUGIN;
         final Plugin compilerPlugin = project.getPlugin(compilerPluginKey);
         if (compilerPlugin != null) {
-            executeGoal(project, compilerPlugin, ORG_APACHE_MAVEN_PLUGINS, MAVEN_COMPILER_PLUGIN, MAVEN_COMPILER_GOAL,
-                    getPluginConfig(compilerPlugin, MAVEN_COMPILER_GOAL));
+            try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.COMPILE)) {
+                executeGoal(project, compilerPlugin, MAVEN_COMPILER_GOAL,
+                        () -> getPluginConfig(compilerPlugin, MAVEN_COMPILER_GOAL));
+            }
+        }
+    }
+
+    private void compile(final ChangeBatch batch) throws MojoExecutionException {
+        final IncrementalCompiler compiler = getIncrementalCompiler();
+        if (compiler != null) {
+            try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.COMPILE)) {
+                if (compiler.compile(batch.changedFiles(), batch.deletedFiles())) {
+                    return;
+                }
+            }
+        }
+        triggerCompile();
+        if (compiler != null) {
+            try {
+                compiler.index();
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to index the compiled classes", e);
+            }
         }
     }
 
+    private IncrementalCompiler getIncrementalCompiler() throws MojoExecutionException {
+        if (!incrementalCompile || incrementalCompilerResolved) {
+            return incrementalCompiler;
+        }
+        incrementalCompilerResolved = true;
+        final Plugin compilerPlugin = project.getPlugin(ORG_APACHE_MAVEN_PLUGINS + ":" + MAVEN_COMPILER_PLUGIN);
+        if (compilerPlugin == null) {
+            return null;
+        }
+        final Xpp3Dom config = getPluginConfig(compilerPlugin, MAVEN_COMPILER_GOAL);
+        final String compilerId = getConfigValue(config, "compilerId");
+        if (Boolean.parseBoolean(getConfigValue(config, "fork")) || config.getChild("annotationProcessorPaths") != null
+                || (compilerId != null && !"javac".equals(compilerId))) {
+            getLog().info("The configuration of the compiler plugin is not supported for incremental compilation,"
+                    + " the compiler plugin will be used.");
+            return null;
+        }
+        final List<String> options = new ArrayList<>();
+        final String release = getCompilerOption(config, "release", "maven.compiler.release");
+        if (release != null) {
+            options.add("--release");
+            options.add(release);
+        } else {
+            final String source = getCompilerOption(config, "source", "maven.compiler.source");
+            if (source != null) {
+                options.add("-source");
+                options.add(source);
+            }
+            final String target = getCompilerOption(config, "target", "maven.compiler.target");
+            if (target != null) {
+                options.add("-target");
+                options.add(target);
+            }
+        }
+        if (Boolean.parseBoolean(getCompilerOption(config, "parameters", "maven.compiler.parameters"))) {
+            options.add("-parameters");
+        }
+        // Debug information is generated unless disabled
+        options.add("false".equalsIgnoreCase(getCompilerOption(config, "debug", "maven.compiler.debug")) ? "-g:none" : "-g");
+        final String proc = getCompilerOption(config, "proc", "maven.compiler.proc");
+        if (proc != null) {
+            options.add("-proc:" + proc);
+        }
+        final Xpp3Dom annotationProcessors = config.getChild("annotationProcessors");
+        if (annotationProcessors != null && annotationProcessors.getChildCount() > 0) {
+            options.add("-processor");
+            options.add(Stream.of(annotationProcessors.getChildren())
+                    .map(Xpp3Dom::getValue)
+                    .collect(Collectors.joining(",")));
+        }
+        final String generatedSources = getConfigValue(config, "generatedSourcesDirectory");
+        final Path generatedSourcesDir = generatedSources == null
+                ? Path.of(project.getBuild().getDirectory(), "generated-sources", "annotations")
+                : Path.of(generatedSources);
+        options.add("-s");
+        options.add(generatedSourcesDir.toString());
+        final Xpp3Dom compilerArgs = config.getChild("compilerArgs");
+        if (compilerArgs != null) {
+            for (Xpp3Dom arg : compilerArgs.getChildren()) {
+                options.add(arg.getValue());
+            }
+        }
+        final String compilerArgument = getConfigValue(config, "compilerArgument");
+        if (compilerArgument != null) {
+            options.addAll(List.of(compilerArgument.trim().split("\\s+")));
+        }
+        final String encoding = getCompilerOption(config, "encoding", "project.build.sourceEncoding");
+        try {
+            Files.createDirectories(generatedSourcesDir);
+            final IncrementalCompiler compiler = IncrementalCompiler.of(Path.of(project.getBuild().getSourceDirectory()),
+                    Path.of(project.getBuild().getOutputDirectory()), project.getCompileClasspathElements(), options,
+                    encoding == null ? null : Charset.forName(encoding),
+                    Path.of(project.getBuild().getDirectory(), "maven-status", MAVEN_COMPILER_PLUGIN, MAVEN_COMPILER_GOAL),
+                    getLog());
+            if (compiler == null) {
+                getLog().warn("The running JVM does not provide a Java compiler, the compiler plugin will be used.");
+                return null;
+            }
+            compiler.index();
+            debug("Compiling changed sources in-process with options %s", options);
+            incrementalCompiler = compiler;
+            return compiler;
+        } catch (DependencyResolutionRequiredException | IOException | IllegalArgumentException e) {
+            getLog().warn("Failed to set up incremental compilation, the compiler plugin will be used: "
+                    + e.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    private String getCompilerOption(final Xpp3Dom config, final String name, final String property) {
+        final String value = getConfigValue(config, name);
+        return value == null ? project.getProperties().getProperty(property) : value;
+    }
+
     private void triggerWarGoal() throws MojoExecutionException {
         // Compile the Java sources if needed
         final String warPluginKey = ORG_APACHE_MAVEN_PLUGINS + ":" + MAVEN_WAR_PLUGIN;
         final Plugin warPlugin = project.getPlugin(warPluginKey);
         if (warPlugin != null) {
-            executeGoal(project, warPlugin, ORG_APACHE_MAVEN_PLUGINS, MAVEN_WAR_PLUGIN, warGoal,
-                    getWarPluginConfig(warPlugin));
+            try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.PACKAGE)) {
+                executeGoal(project, warPlugin, warGoal, () -> getWarPluginConfig(warPlugin));
+                copyReactorModuleJars(warPlugin);
+            }
         } else {
             getLog().warn("Can't package war application, war plugin not found");
         }
     }
 
     private void triggerResources() throws MojoExecutionException {
+        triggerResources(project);
+    }
+
+    private void triggerResources(final MavenProject project) throws MojoExecutionException {
         List<Resource> resources = project.getResources();
         if (resources.isEmpty()) {
             return;
@@ -916,12 +2108,14 @@ public class DevMojo extends AbstractServerStartMojo {
         if (resourcesPlugin == null) {
             return;
         }
-        executeGoal(project, resourcesPlugin, ORG_APACHE_MAVEN_PLUGINS, MAVEN_RESOURCES_PLUGIN, MAVEN_RESOURCES_GOAL,
-                getPluginConfig(resourcesPlugin, MAVEN_RESOURCES_GOAL));
+        try (ReloadTimings.Timer ignored = measure(ReloadTimings.Phase.RESOURCES)) {
+            executeGoal(project, resourcesPlugin, MAVEN_RESOURCES_GOAL,
+                    () -> getPluginConfig(resourcesPlugin, MAVEN_RESOURCES_GOAL));
+        }
     }
 
     private Path getPath(final WatchKey key, final Path fileName) {
-        final WatchContext context = watchedDirectories.get(key);
+        final WatchContext context = watchRegistry.get(key);
         if (context == null) {
             getLog().debug("No more watching key, ignoring change done to " + fileName);
             return null;
@@ -959,10 +2153,16 @@ public class DevMojo extends AbstractServerStartMojo {
         return compileNeeded;
     }
 
-    private void executeGoal(final MavenProject project, final Plugin plugin, final String groupId, final String artifactId,
-            final String goal, final Xpp3Dom config) throws MojoExecutionException {
-        executeMojo(plugin(groupId(groupId), artifactId(artifactId), version(plugin.getVersion()), plugin.getDependencies()),
-                MojoExecutor.goal(goal), config, executionEnvironment(project, mavenSession, pluginManager));
+    private void executeGoal(final MavenProject project, final Plugin plugin, final String goal,
+            final MojoExecutionCache.ConfigurationFactory config) throws MojoExecutionException {
+        getMojoExecutionCache().execute(project, plugin, goal, config);
+    }
+
+    private MojoExecutionCache getMojoExecutionCache() {
+        if (mojoExecutionCache == null) {
+            mojoExecutionCache = new MojoExecutionCache(pluginManager, mavenSession, repositories, session);
+        }
+        return mojoExecutionCache;
     }
 
     private Xpp3Dom getPluginConfig(final Plugin plugin, final String goal) throws MojoExecutionException {
@@ -1035,24 +2235,21 @@ public class DevMojo extends AbstractServerStartMojo {
 
     // Required to retrieve the actual set of supported configuration items.
     private MojoDescriptor getMojoDescriptor(Plugin plugin, String goal) throws MojoExecutionException {
-        try {
-            return pluginManager.getMojoDescriptor(plugin, goal, repositories, session);
-        } catch (Exception e) {
-            throw new MojoExecutionException("Failed to obtain descriptor for Maven plugin " + plugin.getId() + " goal " + goal,
-                    e);
-        }
+        return getMojoExecutionCache().getMojoDescriptor(plugin, goal);
     }
 
     private boolean isIgnoredChange(final Path file) throws IOException {
-        if (isHiddenFile(file) || file.getFileName().toString().endsWith("~")) {
+        final String fileName = file.getFileName().toString();
+        if (fileName.endsWith("~") || isIgnoredPath(file)) {
             return true;
         }
         for (Pattern pattern : getPatterns()) {
-            if (pattern.matcher(file.getFileName().toString()).matches()) {
+            if (pattern.matcher(fileName).matches()) {
                 return true;
             }
         }
-        return false;
+        // Checked last as this may require reading the attributes of the file
+        return isHiddenFile(file);
     }
 
     private boolean isHiddenFile(final Path p) throws IOException {
@@ -0,0 +1,246 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps an exploded WAR directory in sync with its sources without executing the {@code maven-war-plugin}. Source roots
+ * are mapped to a directory within the exploded WAR and only the files which changed are copied or deleted.
+ * <p>
+ * Files are copied, rather than linked, with their attributes preserved. The last modified time of a copied file is
+ * used to detect which files of a mapped tree have changed since the last synchronization. A file is copied to a
+ * temporary file and then renamed, so the server never reads a partially written file.
+ * </p>
+ */
+class ExplodedWarSync {
+    private final Path warDirectory;
+    private final Map<Path, Path> roots;
+
+    private ExplodedWarSync(final Path warDirectory) {
+        this.warDirectory = warDirectory;
+        this.roots = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates a new synchronizer for the exploded WAR directory.
+     *
+     * @param warDirectory the exploded WAR directory
+     *
+     * @return a new synchronizer
+     */
+    static ExplodedWarSync of(final Path warDirectory) {
+        return new ExplodedWarSync(Objects.requireNonNull(warDirectory, "The WAR directory cannot be null"));
+    }
+
+    /**
+     * Maps a source directory to a directory relative to the exploded WAR.
+     *
+     * @param sourceRoot the source directory
+     * @param target     the target directory relative to the root of the exploded WAR, an empty path represents the
+     *                       root
+     *
+     * @return this synchronizer
+     */
+    ExplodedWarSync map(final Path sourceRoot, final String target) {
+        roots.put(sourceRoot.toAbsolutePath().normalize(), warDirectory.resolve(target).normalize());
+        return this;
+    }
+
+    /**
+     * The exploded WAR directory.
+     *
+     * @return the exploded WAR directory
+     */
+    Path warDirectory() {
+        return warDirectory;
+    }
+
+    /**
+     * Checks whether the file is located in one of the mapped source directories.
+     *
+     * @param file the file to check
+     *
+     * @return {@code true} if the file can be synchronized, otherwise {@code false}
+     */
+    boolean isMapped(final Path file) {
+        return findRoot(file) != null;
+    }
+
+    /**
+     * Synchronizes a single file. If the source file exists it's copied to the exploded WAR, otherwise the file is
+     * deleted from the exploded WAR.
+     *
+     * @param file the source file which changed
+     *
+     * @return the file in the exploded WAR which was updated or {@code null} if the file is not in a mapped source
+     *             directory
+     *
+     * @throws IOException if an error occurs copying or deleting the file
+     */
+    Path sync(final Path file) throws IOException {
+        final Path normalized = file.toAbsolutePath().normalize();
+        final Path root = findRoot(normalized);
+        if (root == null) {
+            return null;
+        }
+        final Path target = roots.get(root).resolve(root.relativize(normalized).toString());
+        if (Files.isDirectory(normalized)) {
+            // Copy the whole directory as the files within the directory may not have been reported
+            syncTree(normalized, target, false);
+        } else if (Files.exists(normalized)) {
+            copy(normalized, target);
+        } else {
+            delete(target);
+        }
+        return target;
+    }
+
+    /**
+     * Synchronizes the complete tree of a mapped source directory. Only files which differ in size or last modified
+     * time are copied. Files which no longer exist in the source directory are deleted from the exploded WAR, this
+     * should only be used for source directories which are the only source of the mapped target directory.
+     *
+     * @param sourceRoot the mapped source directory
+     *
+     * @return the files which were copied or deleted in the exploded WAR
+     *
+     * @throws IOException if an error occurs synchronizing the directory
+     */
+    List<Path> syncTree(final Path sourceRoot) throws IOException {
+        final Path root = sourceRoot.toAbsolutePath().normalize();
+        final Path target = roots.get(root);
+        if (target == null) {
+            throw new IllegalArgumentException(String.format("Directory %s is not mapped to the exploded WAR", sourceRoot));
+        }
+        return syncTree(root, target, true);
+    }
+
+    private List<Path> syncTree(final Path source, final Path target, final boolean prune) throws IOException {
+        final List<Path> updated = new ArrayList<>();
+        if (Files.notExists(source)) {
+            if (Files.exists(target)) {
+                delete(target);
+                updated.add(target);
+            }
+            return updated;
+        }
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path targetFile = target.resolve(source.relativize(file).toString());
+                if (isModified(attrs, targetFile)) {
+                    copy(file, targetFile);
+                    updated.add(targetFile);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (!prune) {
+            return updated;
+        }
+        // Remove files which no longer exist in the source directory
+        Files.walkFileTree(target, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                if (Files.notExists(source.resolve(target.relativize(dir).toString()))) {
+                    delete(dir);
+                    updated.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (Files.notExists(source.resolve(target.relativize(file).toString()))) {
+                    Files.delete(file);
+                    updated.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return updated;
+    }
+
+    private Path findRoot(final Path file) {
+        final Path normalized = file.toAbsolutePath().normalize();
+        for (Path root : roots.keySet()) {
+            if (normalized.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isModified(final BasicFileAttributes sourceAttrs, final Path target) throws IOException {
+        if (Files.notExists(target)) {
+            return true;
+        }
+        final BasicFileAttributes targetAttrs = Files.readAttributes(target, BasicFileAttributes.class);
+        // The file system may store the copied time with a lower precision, e.g. microseconds rather than nanoseconds
+        return sourceAttrs.size() != targetAttrs.size()
+                || sourceAttrs.lastModifiedTime().toMillis() != targetAttrs.lastModifiedTime().toMillis();
+    }
+
+    private static void copy(final Path source, final Path target) throws IOException {
+        final Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Copy to a temporary file first, so the server never reads a partially written file. The hidden unique name
+        // cannot replace a file of the deployment.
+        final Path tmp = Files.createTempFile(parent, ".", ".wildfly-dev");
+        try {
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void delete(final Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Tracks the inputs of the application which WildFly Glow uses to discover the required layers, and computes a
+ * fingerprint of them. If the fingerprint did not change, scanning the deployment again would discover the same layers.
+ * <p>
+ * For class files only the {@linkplain ClassFileConstants constants} are used, as Glow discovers layers based on the
+ * types and annotations a class references. Changes to the body of a method which do not reference new symbols do not
+ * change the fingerprint. Descriptors and other resources are compared by content. Static web content, e.g. HTML,
+ * JavaScript or images outside of the {@code WEB-INF} and {@code META-INF} directories, is not used by Glow and ignored.
+ * </p>
+ */
+class GlowInputIndex {
+    private final List<Path> classesDirectories;
+    private final Path webAppDirectory;
+    private final Map<Path, Long> digests = new TreeMap<>();
+
+    private GlowInputIndex(final List<Path> classesDirectories, final Path webAppDirectory) {
+        this.classesDirectories = classesDirectories;
+        this.webAppDirectory = webAppDirectory;
+    }
+
+    /**
+     * Creates a new, empty, index.
+     *
+     * @param classesDirectories the directories of the compiled classes and resources, including the output directories
+     *                               of the modules packaged into the deployment
+     * @param webAppDirectory    the web application source directory
+     *
+     * @return the new index
+     */
+    static GlowInputIndex of(final List<Path> classesDirectories, final Path webAppDirectory) {
+        return new GlowInputIndex(List.copyOf(classesDirectories), webAppDirectory);
+    }
+
+    /**
+     * Clears the index and indexes all files of the classes and web application directories.
+     *
+     * @throws IOException if an error occurs reading the files
+     */
+    synchronized void rebuild() throws IOException {
+        digests.clear();
+        for (Path root : classesDirectories) {
+            indexTree(root);
+        }
+        indexTree(webAppDirectory);
+    }
+
+    /**
+     * Updates the index for the files. Directories are indexed again recursively. Files which no longer exist are
+     * removed from the index, files which are not an input of Glow are ignored.
+     *
+     * @param files the files or directories which changed
+     *
+     * @throws IOException if an error occurs reading a file
+     */
+    synchronized void update(final Collection<Path> files) throws IOException {
+        for (Path file : files) {
+            if (Files.isRegularFile(file)) {
+                index(file);
+            } else {
+                digests.remove(file);
+                digests.keySet().removeIf(path -> path.startsWith(file));
+                indexTree(file);
+            }
+        }
+    }
+
+    /**
+     * Computes a fingerprint of all indexed inputs.
+     *
+     * @return the fingerprint
+     */
+    synchronized String fingerprint() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] value = new byte[Long.BYTES];
+            for (Map.Entry<Path, Long> entry : digests.entrySet()) {
+                digest.update(entry.getKey().toString().getBytes(StandardCharsets.UTF_8));
+                long v = entry.getValue();
+                for (int i = value.length - 1; i >= 0; i--) {
+                    value[i] = (byte) v;
+                    v >>>= 8;
+                }
+                digest.update(value);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is a required algorithm of the JDK
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void indexTree(final Path root) throws IOException {
+        if (Files.isDirectory(root)) {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    index(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    private void index(final Path file) throws IOException {
+        if (classesDirectories.stream().anyMatch(file::startsWith)) {
+            digests.put(file, file.toString().endsWith(".class") ? digestConstants(file) : digestContent(file));
+        } else if (file.startsWith(webAppDirectory) && isWebAppInput(webAppDirectory.relativize(file))) {
+            digests.put(file, digestContent(file));
+        }
+    }
+
+    private static boolean isWebAppInput(final Path relativePath) {
+        final String first = relativePath.getName(0).toString();
+        if ("WEB-INF".equals(first) || "META-INF".equals(first)) {
+            return true;
+        }
+        final String fileName = relativePath.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".xml") || fileName.endsWith(".properties");
+    }
+
+    private static long digestConstants(final Path file) throws IOException {
+        final CRC32C crc = new CRC32C();
+        try {
+            for (String value : ClassFileConstants.read(file).strings()) {
+                crc.update(value.getBytes(StandardCharsets.UTF_8));
+                crc.update(0);
+            }
+        } catch (IOException e) {
+            // Not a valid class file, use the content
+            return digestContent(file);
+        }
+        return crc.getValue();
+    }
+
+    private static long digestContent(final Path file) throws IOException {
+        final CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+}
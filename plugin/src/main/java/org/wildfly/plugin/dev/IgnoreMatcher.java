@@ -0,0 +1,185 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches relative paths against a set of glob patterns. The patterns are compiled into a tree of path segments, so a
+ * path is matched by walking its segments once rather than testing each pattern.
+ * <p>
+ * A pattern is a sequence of segments separated by {@code /}. Within a segment {@code *} matches any number of
+ * characters and {@code ?} matches a single character. A {@code **} segment matches any number of segments, including
+ * none. A pattern without a {@code /} matches the file name at any depth, e.g. {@code *.tmp} is the same as
+ * <code>**&#47;*.tmp</code>. If a directory matches a pattern, all files within the directory are matched as well.
+ * </p>
+ * Examples:
+ * <ul>
+ * <li>{@code node_modules} matches the {@code node_modules} directories at any depth</li>
+ * <li>{@code js/generated/**} matches everything in the {@code js/generated} directory</li>
+ * <li><code>**&#47;*.map</code> matches all files with the {@code .map} extension</li>
+ * </ul>
+ */
+class IgnoreMatcher {
+    private static final String ANY_SEGMENTS = "**";
+
+    private final Node root;
+
+    private IgnoreMatcher(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles the patterns into a matcher.
+     *
+     * @param patterns the glob patterns
+     *
+     * @return the matcher
+     */
+    static IgnoreMatcher of(final Collection<String> patterns) {
+        final Node root = new Node();
+        for (String pattern : patterns) {
+            String normalized = pattern.trim().replace('\\', '/');
+            while (normalized.startsWith("/")) {
+                normalized = normalized.substring(1);
+            }
+            while (normalized.endsWith("/")) {
+                normalized = normalized.substring(0, normalized.length() - 1);
+            }
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            final String[] segments = normalized.split("/+");
+            Node node = root;
+            if (segments.length == 1 && !ANY_SEGMENTS.equals(segments[0])) {
+                node = node.child(ANY_SEGMENTS);
+            }
+            for (String segment : segments) {
+                node = node.child(segment);
+            }
+            node.terminal = true;
+        }
+        return new IgnoreMatcher(root);
+    }
+
+    /**
+     * Indicates whether no patterns have been defined.
+     *
+     * @return {@code true} if no path is matched
+     */
+    boolean isEmpty() {
+        return root.isLeaf();
+    }
+
+    /**
+     * Checks whether the path, or one of its parent directories, matches a pattern.
+     *
+     * @param relativePath the path relative to the directory the patterns are relative to
+     *
+     * @return {@code true} if the path matches
+     */
+    boolean matches(final Path relativePath) {
+        if (isEmpty()) {
+            return false;
+        }
+        final String[] segments = new String[relativePath.getNameCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = relativePath.getName(i).toString();
+        }
+        return matches(root, segments, 0);
+    }
+
+    private static boolean matches(final Node node, final String[] segments, final int index) {
+        if (node.terminal && index > 0) {
+            // A matching directory matches everything within it
+            return true;
+        }
+        final Node anySegments = node.anySegments;
+        if (anySegments != null) {
+            // Matches zero or more segments
+            for (int i = index; i <= segments.length; i++) {
+                if (matches(anySegments, segments, i)) {
+                    return true;
+                }
+            }
+        }
+        if (index == segments.length) {
+            return false;
+        }
+        final String segment = segments[index];
+        final Node literal = node.literals.get(segment);
+        if (literal != null && matches(literal, segments, index + 1)) {
+            return true;
+        }
+        for (Map.Entry<String, Node> wildcard : node.wildcards) {
+            if (matchesSegment(wildcard.getKey(), segment) && matches(wildcard.getValue(), segments, index + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesSegment(final String pattern, final String segment) {
+        int p = 0;
+        int s = 0;
+        int star = -1;
+        int mark = 0;
+        while (s < segment.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == segment.charAt(s))) {
+                p++;
+                s++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                mark = s;
+            } else if (star >= 0) {
+                p = star + 1;
+                s = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    private static class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Map.Entry<String, Node>> wildcards = new ArrayList<>();
+        private Node anySegments;
+        private boolean terminal;
+
+        Node child(final String segment) {
+            if (ANY_SEGMENTS.equals(segment)) {
+                if (anySegments == null) {
+                    anySegments = new Node();
+                }
+                return anySegments;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                for (Map.Entry<String, Node> wildcard : wildcards) {
+                    if (wildcard.getKey().equals(segment)) {
+                        return wildcard.getValue();
+                    }
+                }
+                final Node node = new Node();
+                wildcards.add(Map.entry(segment, node));
+                return node;
+            }
+            return literals.computeIfAbsent(segment, (key) -> new Node());
+        }
+
+        boolean isLeaf() {
+            return literals.isEmpty() && wildcards.isEmpty() && anySegments == null && !terminal;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Compiles changed Java sources in-process with the {@link JavaCompiler} of the running JDK. The changed sources are
+ * compiled first. If the {@linkplain ClassFileConstants#api() API} of a compiled class changed, or a class was added or
+ * removed, the sources of the classes which transitively reference it are compiled in a further round.
+ * <p>
+ * The references between classes are read from the constant pools, descriptors and signatures of the compiled classes
+ * in the output directory, the source file of a class from its {@code SourceFile} attribute. If the sources to compile
+ * cannot be determined, e.g. because a class has no source in the source directory, the compile is declined and the
+ * caller is expected to run a full compile.
+ * </p>
+ * <p>
+ * As the output directory no longer matches the incremental build state of the compiler plugin, the state is deleted
+ * after compiling so the next build of the compiler plugin compiles all sources.
+ * </p>
+ * <p>
+ * Note that compile time constants are inlined by the compiler. A class which only uses a constant of another class
+ * does not reference that class, so changing the value of such a constant does not recompile the classes using it.
+ * </p>
+ */
+class IncrementalCompiler {
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final JavaCompiler compiler;
+    private final Path sourceDirectory;
+    private final Path outputDirectory;
+    private final List<String> options;
+    private final Charset encoding;
+    private final Path statusDirectory;
+    private final Log log;
+    // The source file, relative to the source directory, of each class by the internal name of the class
+    private final Map<String, String> sources = new HashMap<>();
+    // The classes referencing a class by the internal name of the referenced class
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    // The classes referenced by a class by the internal name of the class
+    private final Map<String, Set<String>> references = new HashMap<>();
+    // The API of a class by the internal name of the class
+    private final Map<String, Set<String>> apis = new HashMap<>();
+    // The sources of a compile which failed, relative to the source directory, compiled again by the next compile
+    private final Set<String> failed = new TreeSet<>();
+
+    private IncrementalCompiler(final JavaCompiler compiler, final Path sourceDirectory, final Path outputDirectory,
+            final List<String> options, final Charset encoding, final Path statusDirectory, final Log log) {
+        this.compiler = compiler;
+        this.sourceDirectory = sourceDirectory;
+        this.outputDirectory = outputDirectory;
+        this.options = options;
+        this.encoding = encoding;
+        this.statusDirectory = statusDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Creates a new compiler.
+     *
+     * @param sourceDirectory the directory of the Java sources
+     * @param outputDirectory the directory the classes are written to
+     * @param classpath       the classpath, excluding the output directory
+     * @param options         the compiler options, excluding the classpath and output directory
+     * @param encoding        the encoding of the sources or {@code null} to use the platform encoding
+     * @param statusDirectory the directory of the incremental build state of the compiler plugin, which is deleted
+     *                            after compiling, or {@code null}
+     * @param log             the log to report the compiler diagnostics to
+     *
+     * @return the new compiler or {@code null} if the running JVM does not provide a Java compiler
+     */
+    static IncrementalCompiler of(final Path sourceDirectory, final Path outputDirectory, final Collection<String> classpath,
+            final Collection<String> options, final Charset encoding, final Path statusDirectory, final Log log) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return null;
+        }
+        final List<String> allOptions = new ArrayList<>(options);
+        allOptions.add("-d");
+        allOptions.add(outputDirectory.toString());
+        allOptions.add("-classpath");
+        final List<String> entries = new ArrayList<>();
+        entries.add(outputDirectory.toString());
+        for (String entry : classpath) {
+            if (!outputDirectory.toString().equals(entry)) {
+                entries.add(entry);
+            }
+        }
+        allOptions.add(String.join(File.pathSeparator, entries));
+        // Do not compile other sources found on the classpath
+        allOptions.add("-implicit:none");
+        return new IncrementalCompiler(compiler, sourceDirectory, outputDirectory, List.copyOf(allOptions), encoding,
+                statusDirectory, log);
+    }
+
+    /**
+     * Reads the references between all classes of the output directory. This must be invoked after the sources have
+     * been compiled by other means.
+     *
+     * @throws IOException if an error occurs reading the classes
+     */
+    void index() throws IOException {
+        failed.clear();
+        sources.clear();
+        dependents.clear();
+        references.clear();
+        apis.clear();
+        if (Files.notExists(outputDirectory)) {
+            return;
+        }
+        Files.walkFileTree(outputDirectory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (file.getFileName().toString().endsWith(CLASS_EXTENSION)) {
+                    index(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Compiles the changed sources and the sources depending on them. The sources of a previous compile which failed
+     * are compiled again.
+     *
+     * @param changedFiles the changed Java sources, files outside the source directory are ignored
+     * @param deletedFiles the deleted Java sources, files outside the source directory are ignored
+     *
+     * @return {@code true} if the sources were compiled, {@code false} if the sources to compile could not be
+     *             determined and a full compile is required
+     *
+     * @throws MojoExecutionException if the compilation failed
+     */
+    boolean compile(final Collection<Path> changedFiles, final Collection<Path> deletedFiles)
+            throws MojoExecutionException {
+        final Set<String> changed = toSourceNames(changedFiles);
+        final Set<String> deleted = toSourceNames(deletedFiles);
+        changed.addAll(failed);
+        changed.removeAll(deleted);
+        changed.removeIf(source -> Files.notExists(sourceDirectory.resolve(source)));
+        if (changed.isEmpty() && deleted.isEmpty()) {
+            return true;
+        }
+        // The classes of the deleted sources are removed, the dependents will fail to compile if they still use them
+        final Set<String> deletedClasses = classesOf(deleted);
+        final Set<String> compiled = new HashSet<>(deleted);
+        Set<String> toCompile = new TreeSet<>(changed);
+        if (!addDependents(deletedClasses, deletedClasses, compiled, toCompile)) {
+            return false;
+        }
+        for (String className : deletedClasses) {
+            deleteClass(className);
+        }
+        // Compile the sources in rounds until no API changed which the sources not compiled yet depend on
+        while (!toCompile.isEmpty()) {
+            // Kept until the compile succeeded, the classes written by a failed compile may not have been indexed
+            failed.addAll(toCompile);
+            final Set<String> changedApis = compileSources(toCompile);
+            compiled.addAll(toCompile);
+            toCompile = new TreeSet<>();
+            if (!addDependents(changedApis, deletedClasses, compiled, toCompile)) {
+                return false;
+            }
+        }
+        failed.clear();
+        // The state of the incremental build of the compiler plugin no longer matches the output directory
+        if (statusDirectory != null) {
+            try {
+                deleteRecursively(statusDirectory);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to delete " + statusDirectory, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the sources of the classes which transitively depend on the given classes.
+     *
+     * @return {@code false} if a dependent class has no source
+     */
+    private boolean addDependents(final Set<String> classNames, final Set<String> deletedClasses,
+            final Set<String> compiled, final Set<String> toCompile) {
+        final Set<String> visited = new HashSet<>(classNames);
+        final List<String> queue = new ArrayList<>(classNames);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(queue.remove(queue.size() - 1), Set.of())) {
+                if (deletedClasses.contains(dependent) || !visited.add(dependent)) {
+                    continue;
+                }
+                final String source = sources.get(dependent);
+                if (source == null || Files.notExists(sourceDirectory.resolve(source))) {
+                    log.debug(String.format("[WATCH] No source found for class %s, a full compile is required", dependent));
+                    return false;
+                }
+                if (!compiled.contains(source)) {
+                    toCompile.add(source);
+                }
+                queue.add(dependent);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the sources.
+     *
+     * @return the classes which were added or removed or whose API changed
+     */
+    private Set<String> compileSources(final Set<String> toCompile) throws MojoExecutionException {
+        log.info(String.format("Compiling %d source file(s) to %s", toCompile.size(), outputDirectory));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("[WATCH] Compiling %s", toCompile));
+        }
+        final Set<String> previousClasses = classesOf(toCompile);
+        final Map<String, Set<String>> previousApis = new HashMap<>();
+        for (String className : previousClasses) {
+            previousApis.put(className, apis.get(className));
+        }
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final Set<Path> written = new HashSet<>();
+        try (StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(),
+                encoding)) {
+            final JavaFileManager fileManager = new ForwardingJavaFileManager<>(standardFileManager) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(final Location location, final String className,
+                        final JavaFileObject.Kind kind, final FileObject sibling) throws IOException {
+                    final JavaFileObject result = super.getJavaFileForOutput(location, className, kind, sibling);
+                    if (kind == JavaFileObject.Kind.CLASS) {
+                        written.add(Path.of(result.toUri()));
+                    }
+                    return result;
+                }
+            };
+            final Iterable<? extends JavaFileObject> units = standardFileManager.getJavaFileObjectsFromPaths(
+                    toCompile.stream().map(sourceDirectory::resolve).collect(Collectors.toList()));
+            final boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+            report(diagnostics);
+            if (!success) {
+                throw new MojoExecutionException("Compilation failure");
+            }
+            final Set<String> changedApis = new HashSet<>();
+            // Remove the classes which are no longer created by the compiled sources, e.g. removed nested classes
+            for (String className : previousClasses) {
+                if (!written.contains(classFile(className))) {
+                    deleteClass(className);
+                    changedApis.add(className);
+                }
+            }
+            for (Path file : written) {
+                final String className = index(file);
+                if (className != null && !Objects.equals(previousApis.get(className), apis.get(className))) {
+                    changedApis.add(className);
+                }
+            }
+            return changedApis;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to compile the sources: " + e.getLocalizedMessage(), e);
+        }
+    }
+
+    private void report(final DiagnosticCollector<JavaFileObject> diagnostics) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            final String message;
+            if (diagnostic.getSource() == null) {
+                message = diagnostic.getMessage(Locale.getDefault());
+            } else {
+                message = String.format("%s:[%d,%d] %s", diagnostic.getSource().getName(), diagnostic.getLineNumber(),
+                        diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.getDefault()));
+            }
+            switch (diagnostic.getKind()) {
+                case ERROR:
+                    log.error(message);
+                    break;
+                case WARNING:
+                case MANDATORY_WARNING:
+                    log.warn(message);
+                    break;
+                default:
+                    log.debug(message);
+                    break;
+            }
+        }
+    }
+
+    private Set<String> toSourceNames(final Collection<Path> files) {
+        final Set<String> result = new TreeSet<>();
+        for (Path file : files) {
+            if (file.startsWith(sourceDirectory) && file.getFileName().toString().endsWith(JAVA_EXTENSION)) {
+                result.add(toName(sourceDirectory.relativize(file)));
+            }
+        }
+        return result;
+    }
+
+    private Set<String> classesOf(final Set<String> sourceNames) {
+        final Set<String> result = new HashSet<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            if (sourceNames.contains(entry.getValue())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private String index(final Path classFile) throws IOException {
+        final ClassFileConstants constants = ClassFileConstants.read(classFile);
+        final String className = constants.className();
+        if (className == null) {
+            return null;
+        }
+        removeFromIndex(className);
+        if (constants.sourceFile() != null) {
+            final int slash = className.lastIndexOf('/');
+            sources.put(className, slash < 0 ? constants.sourceFile()
+                    : className.substring(0, slash + 1) + constants.sourceFile());
+        }
+        final Set<String> referencedClasses = new HashSet<>();
+        for (String referenced : constants.referencedClasses()) {
+            referencedClasses.add(referenced);
+            dependents.computeIfAbsent(referenced, (key) -> new HashSet<>()).add(className);
+        }
+        references.put(className, referencedClasses);
+        apis.put(className, constants.api());
+        return className;
+    }
+
+    private void deleteClass(final String className) throws MojoExecutionException {
+        try {
+            Files.deleteIfExists(classFile(className));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to delete class " + className, e);
+        }
+        removeFromIndex(className);
+    }
+
+    private void removeFromIndex(final String className) {
+        sources.remove(className);
+        apis.remove(className);
+        final Set<String> previous = references.remove(className);
+        if (previous != null) {
+            for (String referenced : previous) {
+                final Set<String> values = dependents.get(referenced);
+                if (values != null) {
+                    values.remove(className);
+                }
+            }
+        }
+    }
+
+    private Path classFile(final String className) {
+        return outputDirectory.resolve(className + CLASS_EXTENSION).toAbsolutePath().normalize();
+    }
+
+    private static void deleteRecursively(final Path path) throws IOException {
+        if (Files.notExists(path)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String toName(final Path relativePath) {
+        final StringBuilder name = new StringBuilder();
+        for (Path segment : relativePath) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(segment);
+        }
+        return name.toString();
+    }
+}
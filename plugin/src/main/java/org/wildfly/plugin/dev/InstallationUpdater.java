@@ -0,0 +1,162 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Updates an existing server installation to match a newly provisioned installation. Only the files which differ are
+ * copied and files which no longer exist in the new installation are deleted. Most of the modules are the same for both
+ * installations, so this is much faster than deleting the existing installation and moving the new one in place.
+ * <p>
+ * Paths which contain the runtime state of the server, e.g. {@code standalone/data} or {@code standalone/log}, can be
+ * preserved. Files in preserved paths are neither deleted nor replaced.
+ * </p>
+ */
+class InstallationUpdater {
+    private final Path source;
+    private final Path target;
+    private final Set<Path> preserved;
+    private final Set<Path> replaced = new HashSet<>();
+    private int copied;
+    private int deleted;
+    private int unchanged;
+
+    private InstallationUpdater(final Path source, final Path target, final Set<Path> preserved) {
+        this.source = source;
+        this.target = target;
+        this.preserved = preserved;
+    }
+
+    /**
+     * Updates the target installation to match the source installation.
+     *
+     * @param source    the newly provisioned installation
+     * @param target    the installation to update
+     * @param preserved the paths, relative to the installation, which should not be modified
+     *
+     * @return the completed update
+     *
+     * @throws IOException if an error occurs updating the installation
+     */
+    static InstallationUpdater update(final Path source, final Path target, final Set<Path> preserved) throws IOException {
+        final InstallationUpdater updater = new InstallationUpdater(source, target, preserved);
+        updater.copyChanges();
+        updater.deleteRemoved();
+        return updater;
+    }
+
+    /**
+     * Returns a summary of the update.
+     *
+     * @return the summary
+     */
+    String summary() {
+        return String.format("%d file(s) copied, %d deleted, %d unchanged", copied, deleted, unchanged);
+    }
+
+    /**
+     * Indicates whether an existing file within the directory was replaced with a different file. Files which were
+     * added or deleted are not included.
+     *
+     * @param relativeDir the directory relative to the installation
+     *
+     * @return {@code true} if a file within the directory was replaced
+     */
+    boolean isReplaced(final Path relativeDir) {
+        for (Path path : replaced) {
+            if (path.startsWith(relativeDir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void copyChanges() throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                final Path relative = source.relativize(dir);
+                if (isPreserved(relative)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(relative.toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path relative = source.relativize(file);
+                if (isPreserved(relative)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                final Path targetFile = target.resolve(relative.toString());
+                if (Files.isRegularFile(targetFile) && Files.size(targetFile) == attrs.size()
+                        && Files.mismatch(file, targetFile) == -1L) {
+                    unchanged++;
+                } else {
+                    if (Files.exists(targetFile)) {
+                        replaced.add(relative);
+                    }
+                    Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    copied++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void deleteRemoved() throws IOException {
+        Files.walkFileTree(target, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                return isPreserved(target.relativize(dir)) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path relative = target.relativize(file);
+                if (!isPreserved(relative) && Files.notExists(source.resolve(relative.toString()))) {
+                    Files.delete(file);
+                    deleted++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                final Path relative = target.relativize(dir);
+                if (relative.toString().length() > 0 && Files.notExists(source.resolve(relative.toString()))) {
+                    // The directory may still contain preserved files
+                    try (Stream<Path> files = Files.list(dir)) {
+                        if (files.findAny().isEmpty()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isPreserved(final Path relative) {
+        for (Path path : preserved) {
+            if (relative.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small HTTP server which notifies the pages of the application that a reload completed, using
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">server-sent events</a>.
+ * <p>
+ * Pages include the {@code /livereload.js} script of this server, which listens to the {@code /events} endpoint. When
+ * only stylesheets changed, the stylesheets are replaced without reloading the page. Otherwise the page is reloaded.
+ * Events are only sent once a reload completed, so pages do not request the application while it is being deployed.
+ * </p>
+ */
+class LiveReloadServer implements AutoCloseable {
+    private static final String SCRIPT = """
+            (function () {
+                var script = document.currentScript;
+                var source = new EventSource(new URL('/events', script.src));
+                source.addEventListener('reload', function (event) {
+                    var data = JSON.parse(event.data);
+                    var stylesOnly = !data.reload && data.paths.length > 0 && data.paths.every(function (path) {
+                        return /\\.css$/i.test(path);
+                    });
+                    if (!stylesOnly) {
+                        window.location.reload();
+                        return;
+                    }
+                    document.querySelectorAll('link[rel="stylesheet"]').forEach(function (link) {
+                        var url = new URL(link.href);
+                        if (data.paths.some(function (path) { return url.pathname.endsWith(path); })) {
+                            url.searchParams.set('livereload', Date.now());
+                            link.href = url.toString();
+                        }
+                    });
+                });
+            })();
+            """;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Log log;
+    private final List<HttpExchange> clients = new CopyOnWriteArrayList<>();
+
+    private LiveReloadServer(final HttpServer server, final ExecutorService executor, final Log log) {
+        this.server = server;
+        this.executor = executor;
+        this.log = log;
+    }
+
+    /**
+     * Starts a new server listening on the loopback address.
+     *
+     * @param port the port to listen on
+     * @param log  the log
+     *
+     * @return the started server
+     *
+     * @throws IOException if the server could not be started, e.g. the port is already in use
+     */
+    static LiveReloadServer start(final int port, final Log log) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        final ExecutorService executor = Executors.newCachedThreadPool((task) -> {
+            final Thread thread = new Thread(task, "wildfly-dev-live-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final LiveReloadServer liveReloadServer = new LiveReloadServer(server, executor, log);
+        server.createContext("/livereload.js", liveReloadServer::sendScript);
+        server.createContext("/events", liveReloadServer::register);
+        server.setExecutor(executor);
+        server.start();
+        return liveReloadServer;
+    }
+
+    /**
+     * Returns the URL of the script pages must include.
+     *
+     * @return the URL of the script
+     */
+    String scriptUrl() {
+        final InetSocketAddress address = server.getAddress();
+        return String.format("http://%s:%d/livereload.js", address.getHostString(), address.getPort());
+    }
+
+    /**
+     * Notifies all connected pages that a reload completed.
+     *
+     * @param paths  the paths, relative to the context root of the application, of the changed web resources
+     * @param reload {@code true} if other files changed and pages must be fully reloaded
+     */
+    void notifyClients(final Collection<String> paths, final boolean reload) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        final StringBuilder data = new StringBuilder();
+        data.append("{\"reload\":").append(reload).append(",\"paths\":[");
+        boolean first = true;
+        for (String path : paths) {
+            if (!first) {
+                data.append(',');
+            }
+            data.append('"').append(path.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            first = false;
+        }
+        data.append("]}");
+        final byte[] event = ("event: reload\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        for (HttpExchange client : clients) {
+            try {
+                final OutputStream out = client.getResponseBody();
+                out.write(event);
+                out.flush();
+            } catch (IOException e) {
+                // The page has been closed
+                clients.remove(client);
+                client.close();
+            }
+        }
+        log.debug(String.format("[WATCH] Notified %d page(s) of the reload", clients.size()));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        for (HttpExchange client : clients) {
+            client.close();
+        }
+        clients.clear();
+        executor.shutdownNow();
+    }
+
+    private void sendScript(final HttpExchange exchange) throws IOException {
+        final byte[] body = SCRIPT.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/javascript; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void register(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        // The pages are served by the application, which has a different origin
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        // A length of 0 sends the response in chunks, the exchange is kept open until the page is closed
+        exchange.sendResponseHeaders(200, 0);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        clients.add(exchange);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Executes the goals of other plugins, e.g. the compiler or WAR plugin, for the dev goal. The {@link MojoExecution} of
+ * each goal, including the lookup of the mojo descriptor and the merged configuration, is created once and reused for
+ * each further execution of the goal. The class realm of the plugin is cached by the {@link BuildPluginManager}.
+ * <p>
+ * The configuration of a goal is only resolved when the goal is first executed. Changes to the POM are not supported
+ * by the dev goal, so the configuration does not change while the dev goal is running.
+ * </p>
+ */
+class MojoExecutionCache {
+
+    /**
+     * Creates the configuration of a goal.
+     */
+    @FunctionalInterface
+    interface ConfigurationFactory {
+        Xpp3Dom create() throws MojoExecutionException;
+    }
+
+    private final BuildPluginManager pluginManager;
+    private final MavenSession mavenSession;
+    private final List<RemoteRepository> repositories;
+    private final RepositorySystemSession session;
+    private final Map<String, MojoExecution> executions = new HashMap<>();
+
+    MojoExecutionCache(final BuildPluginManager pluginManager, final MavenSession mavenSession,
+            final List<RemoteRepository> repositories, final RepositorySystemSession session) {
+        this.pluginManager = pluginManager;
+        this.mavenSession = mavenSession;
+        this.repositories = repositories;
+        this.session = session;
+    }
+
+    /**
+     * Returns the descriptor of the goal.
+     *
+     * @param plugin the plugin
+     * @param goal   the goal
+     *
+     * @return the descriptor of the goal
+     *
+     * @throws MojoExecutionException if the descriptor could not be resolved
+     */
+    MojoDescriptor getMojoDescriptor(final Plugin plugin, final String goal) throws MojoExecutionException {
+        try {
+            return pluginManager.getMojoDescriptor(plugin, goal, repositories, session);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to obtain descriptor for Maven plugin " + plugin.getId() + " goal " + goal,
+                    e);
+        }
+    }
+
+    /**
+     * Executes the goal for the project.
+     *
+     * @param project       the project to execute the goal for
+     * @param plugin        the plugin of the goal
+     * @param goal          the goal to execute
+     * @param configuration the factory for the configuration of the goal, only invoked the first time the goal is
+     *                          executed
+     *
+     * @throws MojoExecutionException if the goal could not be executed or failed
+     */
+    void execute(final MavenProject project, final Plugin plugin, final String goal,
+            final ConfigurationFactory configuration) throws MojoExecutionException {
+        // The configuration depends on the project, e.g. for the modules of the reactor the WAR depends on
+        final String key = project.getId() + ":" + plugin.getKey() + ":" + goal;
+        MojoExecution execution = executions.get(key);
+        if (execution == null) {
+            final MojoDescriptor descriptor = getMojoDescriptor(plugin, goal);
+            // Add the default values of the parameters which have not been configured
+            final Xpp3Dom merged = Xpp3Dom.mergeXpp3Dom(configuration.create(), toXpp3Dom(descriptor.getMojoConfiguration()));
+            execution = new MojoExecution(descriptor, merged);
+            executions.put(key, execution);
+        }
+        final MavenProject currentProject = mavenSession.getCurrentProject();
+        try {
+            mavenSession.setCurrentProject(project);
+            pluginManager.executeMojo(mavenSession, execution);
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException(String.format("Failed to execute goal %s of plugin %s: %s", goal,
+                    plugin.getId(), e.getMessage()), e);
+        } finally {
+            mavenSession.setCurrentProject(currentProject);
+        }
+    }
+
+    private static Xpp3Dom toXpp3Dom(final PlexusConfiguration configuration) {
+        final Xpp3Dom result = new Xpp3Dom(configuration.getName());
+        result.setValue(configuration.getValue(null));
+        for (String name : configuration.getAttributeNames()) {
+            result.setAttribute(name, configuration.getAttribute(name));
+        }
+        for (PlexusConfiguration child : configuration.getChildren()) {
+            result.addChild(toXpp3Dom(child));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+/**
+ * Hands batches of changes from the thread collecting the watch events to the thread reloading the deployment. Batches
+ * submitted while the reload thread is busy are merged, so the reload thread only ever processes the latest state of
+ * the sources rather than replaying each batch.
+ */
+class PendingChanges {
+    private ChangeBatch pending;
+    private ChangeBatch retained;
+    private boolean closed;
+
+    /**
+     * Submits a batch of changes. If a batch is already pending, the changes are merged into the pending batch.
+     *
+     * @param batch the batch to submit
+     */
+    synchronized void submit(final ChangeBatch batch) {
+        if (closed || batch.isEmpty()) {
+            return;
+        }
+        pending = pending == null ? batch : pending.merge(batch);
+        notifyAll();
+    }
+
+    /**
+     * Returns a batch which was taken, but not completely processed, so its changes are processed again together with
+     * any changes submitted in the meantime.
+     *
+     * @param batch the batch to return
+     */
+    synchronized void requeue(final ChangeBatch batch) {
+        if (closed) {
+            return;
+        }
+        pending = pending == null ? batch : batch.merge(pending);
+        notifyAll();
+    }
+
+    /**
+     * Retains a batch whose processing failed. Its changes are processed again with the next batch submitted, but do
+     * not trigger a new cycle on their own, so a failing cycle is not repeated until the sources are changed again.
+     *
+     * @param batch the batch to retain
+     */
+    synchronized void retain(final ChangeBatch batch) {
+        if (closed) {
+            return;
+        }
+        retained = retained == null ? batch : retained.merge(batch);
+    }
+
+    /**
+     * Waits for a batch of changes to be submitted and removes it.
+     *
+     * @return the pending batch or {@code null} if this has been {@linkplain #close() closed}
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    synchronized ChangeBatch take() throws InterruptedException {
+        while (pending == null && !closed) {
+            wait();
+        }
+        ChangeBatch result = pending;
+        if (result != null && retained != null) {
+            result = retained.merge(result);
+        }
+        pending = null;
+        retained = null;
+        return result;
+    }
+
+    /**
+     * Indicates whether a newer batch of changes has been submitted.
+     *
+     * @return {@code true} if a batch is pending
+     */
+    synchronized boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * Closes this queue. Any pending or retained changes are discarded and threads waiting for changes are released.
+     */
+    synchronized void close() {
+        closed = true;
+        pending = null;
+        retained = null;
+        notifyAll();
+    }
+}
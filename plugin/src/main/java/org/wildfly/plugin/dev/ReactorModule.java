@@ -0,0 +1,273 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * A JAR module of the reactor the WAR depends on. The sources and resources of the module are watched by the dev goal.
+ * When they change the module is compiled and packaged again and the JAR is replaced in the {@code WEB-INF/lib}
+ * directory of the deployment. The artifact of the module is not changed, it's shared with the other projects of the
+ * session.
+ */
+class ReactorModule {
+    private static final Set<String> PACKAGED_SCOPES = Set.of(Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME);
+    private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+    private final MavenProject project;
+    private final Artifact artifact;
+
+    private ReactorModule(final MavenProject project, final Artifact artifact) {
+        this.project = project;
+        this.artifact = artifact;
+    }
+
+    /**
+     * Finds the modules of the reactor which are packaged into the {@code WEB-INF/lib} directory of the WAR.
+     *
+     * @param project  the WAR project
+     * @param projects the projects of the reactor
+     *
+     * @return the modules the WAR depends on, in the order of the reactor
+     */
+    static List<ReactorModule> discover(final MavenProject project, final List<MavenProject> projects) {
+        final Map<String, Artifact> artifacts = new HashMap<>();
+        for (Artifact artifact : project.getArtifacts()) {
+            if ("jar".equals(artifact.getType()) && !artifact.hasClassifier()
+                    && PACKAGED_SCOPES.contains(artifact.getScope())) {
+                artifacts.put(ArtifactUtils.key(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion()),
+                        artifact);
+            }
+        }
+        final List<ReactorModule> result = new ArrayList<>();
+        for (MavenProject reactorProject : projects) {
+            final Artifact artifact = artifacts.get(ArtifactUtils.key(reactorProject.getGroupId(),
+                    reactorProject.getArtifactId(), reactorProject.getVersion()));
+            if (artifact != null && reactorProject != project) {
+                result.add(new ReactorModule(reactorProject, artifact));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The project of the module.
+     *
+     * @return the project
+     */
+    MavenProject project() {
+        return project;
+    }
+
+    /**
+     * The name of the JAR in the {@code WEB-INF/lib} directory. This is the default name used by the
+     * {@code maven-war-plugin}.
+     *
+     * @return the file name of the JAR
+     */
+    String jarName() {
+        return artifact.getArtifactId() + "-" + artifact.getBaseVersion() + ".jar";
+    }
+
+    /**
+     * The directories of the sources and resources of the module.
+     *
+     * @return the source directories
+     */
+    List<Path> sourceDirectories() {
+        final List<Path> result = new ArrayList<>();
+        result.add(Path.of(project.getBuild().getSourceDirectory()));
+        for (Resource resource : project.getResources()) {
+            result.add(Path.of(resource.getDirectory()));
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether the file is a source or resource of the module.
+     *
+     * @param file the file to check
+     *
+     * @return {@code true} if the file belongs to this module
+     */
+    boolean contains(final Path file) {
+        for (Path dir : sourceDirectories()) {
+            if (file.startsWith(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The directory of the compiled classes and resources of the module.
+     *
+     * @return the output directory
+     */
+    Path outputDirectory() {
+        return Path.of(project.getBuild().getOutputDirectory());
+    }
+
+    /**
+     * Packages the output directory of the module into a JAR in the directory.
+     * <p>
+     * The manifest is read from the {@code archive/manifestFile} of the {@code maven-jar-plugin} configuration, or from
+     * the {@code META-INF/MANIFEST.MF} of the output directory, and the {@code archive/manifestEntries} are added to it.
+     * The {@code includes} and {@code excludes} of the configuration are applied as glob patterns. Other parameters of
+     * the {@code maven-jar-plugin}, e.g. a classifier or a custom archiver, are not supported.
+     * </p>
+     *
+     * @param directory     the directory to write the JAR to
+     * @param configuration the configuration of the {@code maven-jar-plugin} or {@code null}
+     *
+     * @return the new JAR
+     *
+     * @throws IOException if an error occurs writing the JAR
+     */
+    Path writeJar(final Path directory, final Xpp3Dom configuration) throws IOException {
+        final Path outputDirectory = outputDirectory();
+        final Path jar = directory.resolve(jarName());
+        final Path tmp = directory.resolve(jarName() + ".tmp");
+        Files.createDirectories(directory);
+        final Manifest manifest = readManifest(outputDirectory, configuration);
+        final List<PathMatcher> includes = getPatterns(configuration, "includes");
+        final List<PathMatcher> excludes = getPatterns(configuration, "excludes");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(tmp), manifest)) {
+            if (Files.isDirectory(outputDirectory)) {
+                Files.walkFileTree(outputDirectory, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                            throws IOException {
+                        if (!dir.equals(outputDirectory)) {
+                            final JarEntry entry = new JarEntry(toEntryName(outputDirectory.relativize(dir)) + "/");
+                            entry.setLastModifiedTime(attrs.lastModifiedTime());
+                            out.putNextEntry(entry);
+                            out.closeEntry();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                        final Path relativePath = outputDirectory.relativize(file);
+                        final String name = toEntryName(relativePath);
+                        // The manifest has already been written
+                        if (!MANIFEST_NAME.equals(name) && (includes.isEmpty() || matches(includes, relativePath))
+                                && !matches(excludes, relativePath)) {
+                            final JarEntry entry = new JarEntry(name);
+                            entry.setLastModifiedTime(attrs.lastModifiedTime());
+                            out.putNextEntry(entry);
+                            Files.copy(file, (OutputStream) out);
+                            out.closeEntry();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        }
+        try {
+            Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return jar;
+    }
+
+    @Override
+    public String toString() {
+        return project.getId();
+    }
+
+    private Manifest readManifest(final Path outputDirectory, final Xpp3Dom configuration) throws IOException {
+        final Xpp3Dom archive = configuration == null ? null : configuration.getChild("archive");
+        final Xpp3Dom manifestFile = archive == null ? null : archive.getChild("manifestFile");
+        Path file = outputDirectory.resolve(MANIFEST_NAME);
+        if (manifestFile != null && manifestFile.getValue() != null && !manifestFile.getValue().isBlank()) {
+            file = project.getBasedir().toPath().resolve(manifestFile.getValue().trim());
+        }
+        final Manifest manifest;
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                manifest = new Manifest(in);
+            }
+        } else {
+            manifest = new Manifest();
+        }
+        manifest.getMainAttributes().putIfAbsent(Attributes.Name.MANIFEST_VERSION, "1.0");
+        final Xpp3Dom entries = archive == null ? null : archive.getChild("manifestEntries");
+        if (entries != null) {
+            for (Xpp3Dom entry : entries.getChildren()) {
+                manifest.getMainAttributes().putValue(entry.getName(), entry.getValue() == null ? "" : entry.getValue());
+            }
+        }
+        return manifest;
+    }
+
+    private static List<PathMatcher> getPatterns(final Xpp3Dom configuration, final String name) {
+        final Xpp3Dom patterns = configuration == null ? null : configuration.getChild(name);
+        if (patterns == null) {
+            return List.of();
+        }
+        final List<PathMatcher> result = new ArrayList<>();
+        for (Xpp3Dom pattern : patterns.getChildren()) {
+            final String value = pattern.getValue();
+            if (value != null && !value.isBlank()) {
+                result.add(FileSystems.getDefault().getPathMatcher("glob:" + value.trim()));
+                // A leading **/ of an Ant pattern also matches files in the root directory
+                if (value.trim().startsWith("**/")) {
+                    result.add(FileSystems.getDefault().getPathMatcher("glob:" + value.trim().substring(3)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(final List<PathMatcher> matchers, final Path relativePath) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toEntryName(final Path relativePath) {
+        final StringBuilder name = new StringBuilder();
+        for (Path segment : relativePath) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(segment);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+/**
+ * Handles changes to the sources and resources of a {@linkplain ReactorModule reactor module} the WAR depends on. The
+ * module is compiled and packaged by the dev goal, the WAR itself only needs to be repackaged.
+ */
+class ReactorModuleHandler implements WatchHandler {
+
+    @Override
+    public Result handle(final WatchContext context, final WatchEvent<Path> event, final Path file) {
+        return new Result() {
+            @Override
+            public boolean requiresRepackage() {
+                return true;
+            }
+
+            @Override
+            public boolean requiresRedeploy() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the duration of each phase of the reload cycles of the dev goal. After each cycle a summary is created which
+ * includes the percentiles of the total duration of the recent cycles. Optionally each cycle is appended as a JSON
+ * object to a file, one line per cycle.
+ */
+class ReloadTimings {
+    // The number of recent cycles the percentiles are calculated for
+    private static final int WINDOW_SIZE = 100;
+
+    /**
+     * The phases of a reload cycle.
+     */
+    enum Phase {
+        /**
+         * The time from the first change of a batch being detected until the reload cycle started. This includes the
+         * quiet period and the time spent waiting for a previous cycle to complete.
+         */
+        DETECT,
+        RESOURCES,
+        COMPILE,
+        PACKAGE,
+        SCAN,
+        PROVISION,
+        DEPLOY;
+
+        String displayName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The outcome of a reload cycle.
+     */
+    enum Outcome {
+        COMPLETED,
+        SUPERSEDED,
+        FAILED;
+
+        String displayName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Path logFile;
+    private final long[] totals = new long[WINDOW_SIZE];
+    private int count;
+
+    private ReloadTimings(final Path logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Creates a new timings recorder.
+     *
+     * @param logFile the file each cycle is appended to or {@code null} if the cycles should not be written to a file
+     *
+     * @return the new recorder
+     */
+    static ReloadTimings of(final Path logFile) {
+        return new ReloadTimings(logFile);
+    }
+
+    /**
+     * Starts a new cycle.
+     *
+     * @param batch the batch of changes the cycle is processing
+     *
+     * @return the new cycle
+     */
+    Cycle start(final ChangeBatch batch) {
+        return new Cycle(batch);
+    }
+
+    /**
+     * Completes the cycle. Only completed cycles are included in the percentiles.
+     *
+     * @param cycle   the cycle to complete
+     * @param outcome the outcome of the cycle
+     *
+     * @return a summary of the cycle
+     *
+     * @throws IOException if an error occurs writing the cycle to the log file
+     */
+    String complete(final Cycle cycle, final Outcome outcome) throws IOException {
+        final long total = System.nanoTime() - cycle.firstChange;
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Reload %s in %d ms", outcome.displayName(), toMillis(total)));
+        final StringJoiner phases = new StringJoiner(", ", " [", "]");
+        for (Map.Entry<Phase, Long> entry : cycle.durations.entrySet()) {
+            phases.add(entry.getKey().displayName() + " " + toMillis(entry.getValue()) + " ms");
+        }
+        summary.append(phases);
+        if (outcome == Outcome.COMPLETED) {
+            totals[count++ % WINDOW_SIZE] = total;
+            final long[] window = Arrays.copyOf(totals, Math.min(count, WINDOW_SIZE));
+            Arrays.sort(window);
+            summary.append(String.format(" (p50 %d ms, p95 %d ms of the last %d reloads)",
+                    toMillis(percentile(window, 50)), toMillis(percentile(window, 95)), window.length));
+        }
+        if (logFile != null) {
+            write(cycle, outcome, total);
+        }
+        return summary.toString();
+    }
+
+    private void write(final Cycle cycle, final Outcome outcome, final long total) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"timestamp\":\"").append(Instant.now()).append('"')
+                .append(",\"outcome\":\"").append(outcome.displayName()).append('"')
+                .append(",\"files\":").append(cycle.files)
+                .append(",\"totalMs\":").append(toMillis(total))
+                .append(",\"phases\":{");
+        boolean first = true;
+        for (Map.Entry<Phase, Long> entry : cycle.durations.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            json.append('"').append(entry.getKey().displayName()).append("\":").append(toMillis(entry.getValue()));
+            first = false;
+        }
+        json.append("}}");
+        final Path parent = logFile.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writer.write(json.toString());
+            writer.newLine();
+        }
+    }
+
+    private static long percentile(final long[] sorted, final int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * The durations of the phases of a single reload cycle.
+     */
+    static class Cycle {
+        private final long firstChange;
+        private final int files;
+        private final Map<Phase, Long> durations = new EnumMap<>(Phase.class);
+        // The phase currently measured and the time it was started or resumed
+        private Phase active;
+        private long activeStart;
+
+        private Cycle(final ChangeBatch batch) {
+            this.firstChange = batch.firstChangeTime();
+            this.files = batch.size();
+            durations.put(Phase.DETECT, System.nanoTime() - firstChange);
+        }
+
+        /**
+         * Starts measuring a phase. The duration is added to the phase when the returned timer is closed, so a phase
+         * may be measured more than once per cycle.
+         * <p>
+         * If a phase is measured while another phase is measured, the other phase is paused until the returned timer is
+         * closed. The time is therefore never added to more than one phase.
+         * </p>
+         *
+         * @param phase the phase to measure
+         *
+         * @return the timer which must be closed when the phase has ended
+         */
+        Timer measure(final Phase phase) {
+            final Phase outer = active;
+            final long start = System.nanoTime();
+            if (outer != null) {
+                durations.merge(outer, start - activeStart, Long::sum);
+            }
+            active = phase;
+            activeStart = start;
+            return () -> {
+                final long end = System.nanoTime();
+                durations.merge(phase, end - activeStart, Long::sum);
+                active = outer;
+                activeStart = end;
+            };
+        }
+    }
+
+    /**
+     * A timer for a phase which is stopped when closed.
+     */
+    interface Timer extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
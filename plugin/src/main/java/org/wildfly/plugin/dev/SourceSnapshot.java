@@ -0,0 +1,327 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * A lightweight snapshot of the state of the watched source files. The size and last modified time of each file is
+ * recorded. Comparing two snapshots allows changes which were not reported by the watch service, e.g. after an
+ * {@linkplain java.nio.file.StandardWatchEventKinds#OVERFLOW overflow} or while the dev goal was not running, to be
+ * detected.
+ * <p>
+ * The snapshot also records a fingerprint of the inputs of the build which are not source files, e.g. the effective
+ * model of the project and the resolved dependencies.
+ * </p>
+ * <p>
+ * A snapshot may be updated and compared from different threads.
+ * </p>
+ */
+class SourceSnapshot {
+    private static final String HEADER = "# wildfly-maven-plugin dev source snapshot v2";
+    private static final String MODEL_PREFIX = "model\t";
+
+    private final Path baseDir;
+    private final String modelFingerprint;
+    private final Map<Path, FileState> files;
+
+    private SourceSnapshot(final Path baseDir, final String modelFingerprint, final Map<Path, FileState> files) {
+        this.baseDir = baseDir;
+        this.modelFingerprint = modelFingerprint;
+        this.files = files;
+    }
+
+    /**
+     * Scans the roots and creates a new snapshot. A root may be a directory, which is scanned recursively, or a single
+     * file.
+     *
+     * @param baseDir          the directory the files are stored relative to when persisted
+     * @param modelFingerprint the fingerprint of the build inputs which are not source files
+     * @param roots            the directories or files to scan
+     * @param excluded         a predicate which returns {@code true} for directories which should not be scanned
+     *
+     * @return the new snapshot
+     *
+     * @throws IOException if an error occurs scanning the roots
+     */
+    static SourceSnapshot scan(final Path baseDir, final String modelFingerprint, final Collection<Path> roots,
+            final Predicate<Path> excluded) throws IOException {
+        final Map<Path, FileState> files = new HashMap<>();
+        for (Path root : roots) {
+            scan(files, root, excluded);
+        }
+        return new SourceSnapshot(baseDir, modelFingerprint, files);
+    }
+
+    /**
+     * Loads a previously {@linkplain #store(Path) stored} snapshot.
+     *
+     * @param baseDir the directory the files were stored relative to
+     * @param file    the file the snapshot was stored in
+     *
+     * @return the snapshot or {@code null} if the file does not exist or is not a valid snapshot
+     *
+     * @throws IOException if an error occurs reading the file
+     */
+    static SourceSnapshot load(final Path baseDir, final Path file) throws IOException {
+        if (Files.notExists(file)) {
+            return null;
+        }
+        final Map<Path, FileState> files = new HashMap<>();
+        final String model;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            model = reader.readLine();
+            if (model == null || !model.startsWith(MODEL_PREFIX)) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split("\t", 3);
+                if (parts.length != 3) {
+                    return null;
+                }
+                try {
+                    files.put(baseDir.resolve(parts[2]), new FileState(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return new SourceSnapshot(baseDir, model.substring(MODEL_PREFIX.length()), files);
+    }
+
+    /**
+     * The fingerprint of the build inputs which are not source files.
+     *
+     * @return the fingerprint
+     */
+    String modelFingerprint() {
+        return modelFingerprint;
+    }
+
+    /**
+     * Stores the snapshot in the file. The file is replaced atomically where supported by the file system.
+     *
+     * @param file the file to store the snapshot in
+     *
+     * @throws IOException if an error occurs writing the file
+     */
+    synchronized void store(final Path file) throws IOException {
+        final Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(MODEL_PREFIX + modelFingerprint);
+            writer.newLine();
+            for (Map.Entry<Path, FileState> entry : files.entrySet()) {
+                writer.write(Long.toString(entry.getValue().size));
+                writer.write('\t');
+                writer.write(Long.toString(entry.getValue().lastModified));
+                writer.write('\t');
+                writer.write(baseDir.relativize(entry.getKey()).toString());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Updates the state of the files in this snapshot. Directories are scanned recursively. Files which no longer exist
+     * are removed from the snapshot.
+     *
+     * @param paths    the files or directories to update
+     * @param excluded a predicate which returns {@code true} for directories which should not be scanned
+     *
+     * @throws IOException if an error occurs reading the attributes of a file
+     */
+    synchronized void update(final Collection<Path> paths, final Predicate<Path> excluded) throws IOException {
+        for (Path path : paths) {
+            if (Files.exists(path)) {
+                scan(files, path, excluded);
+            } else {
+                files.remove(path);
+                // The path may have been a directory, remove all files within it
+                files.keySet().removeIf(file -> file.startsWith(path));
+            }
+        }
+    }
+
+    /**
+     * Compares this snapshot with a newer snapshot.
+     *
+     * @param current the newer snapshot
+     *
+     * @return the differences between the snapshots
+     */
+    synchronized Diff diff(final SourceSnapshot current) {
+        final Set<Path> created = new TreeSet<>();
+        final Set<Path> modified = new TreeSet<>();
+        final Set<Path> deleted = new TreeSet<>();
+        for (Map.Entry<Path, FileState> entry : current.files.entrySet()) {
+            final FileState previous = files.get(entry.getKey());
+            if (previous == null) {
+                created.add(entry.getKey());
+            } else if (!previous.equals(entry.getValue())) {
+                modified.add(entry.getKey());
+            }
+        }
+        for (Path file : files.keySet()) {
+            if (!current.files.containsKey(file)) {
+                deleted.add(file);
+            }
+        }
+        return new Diff(created, modified, deleted);
+    }
+
+    /**
+     * Creates an event for a change which was detected by comparing snapshots rather than reported by the watch
+     * service.
+     *
+     * @param kind    the kind of the event
+     * @param context the file name relative to the directory it's located in
+     *
+     * @return the event
+     */
+    static WatchEvent<Path> event(final WatchEvent.Kind<Path> kind, final Path context) {
+        return new WatchEvent<>() {
+            @Override
+            public Kind<Path> kind() {
+                return kind;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Path context() {
+                return context;
+            }
+        };
+    }
+
+    private static void scan(final Map<Path, FileState> files, final Path root, final Predicate<Path> excluded)
+            throws IOException {
+        if (Files.isRegularFile(root)) {
+            files.put(root, FileState.of(Files.readAttributes(root, BasicFileAttributes.class)));
+        } else if (Files.isDirectory(root)) {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                    return excluded.test(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    files.put(file, FileState.of(attrs));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
+                    // The file may have been deleted while walking the tree
+                    if (exc instanceof NoSuchFileException) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    throw exc;
+                }
+            });
+        }
+    }
+
+    /**
+     * The differences between two snapshots.
+     */
+    static class Diff {
+        private final Set<Path> created;
+        private final Set<Path> modified;
+        private final Set<Path> deleted;
+
+        private Diff(final Set<Path> created, final Set<Path> modified, final Set<Path> deleted) {
+            this.created = created;
+            this.modified = modified;
+            this.deleted = deleted;
+        }
+
+        Set<Path> created() {
+            return created;
+        }
+
+        Set<Path> modified() {
+            return modified;
+        }
+
+        Set<Path> deleted() {
+            return deleted;
+        }
+
+        boolean isEmpty() {
+            return created.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Diff[created=" + created.size() + ", modified=" + modified.size() + ", deleted=" + deleted.size() + "]";
+        }
+    }
+
+    private static class FileState {
+        private final long size;
+        private final long lastModified;
+
+        private FileState(final long size, final long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        static FileState of(final BasicFileAttributes attrs) {
+            return new FileState(attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof FileState)) {
+                return false;
+            }
+            final FileState other = (FileState) obj;
+            return size == other.size && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
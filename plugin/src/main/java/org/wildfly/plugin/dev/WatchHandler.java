@@ -60,5 +60,15 @@ public interface WatchHandler {
         default boolean requiresRepackage() {
             return false;
         }
+
+        /**
+         * Indicates whether the changed file can be copied into the deployment as is, without repackaging or
+         * redeploying the deployment.
+         *
+         * @return {@code true} if the file only needs to be copied into the deployment
+         */
+        default boolean requiresContentUpdate() {
+            return false;
+        }
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.wildfly.plugin.dev;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Keeps track of the directories registered with a {@link WatchService}. The registered directories are kept in a set
+ * so a directory is never registered twice, and checking whether a directory is registered does not require iterating
+ * the registered keys.
+ * <p>
+ * Directory trees are walked in parallel. Each directory is listed and registered by a task and a new task is forked for
+ * each subdirectory.
+ * </p>
+ */
+class WatchRegistry {
+    private final WatchService watcher;
+    private final Predicate<Path> excluded;
+    private final Log log;
+    private final Map<WatchKey, WatchContext> contexts = new ConcurrentHashMap<>();
+    private final Set<Path> registered = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new registry.
+     *
+     * @param watcher  the watch service to register directories with
+     * @param excluded a predicate which returns {@code true} for directories which, including their subdirectories,
+     *                     should not be watched
+     * @param log      the log used for debug messages
+     */
+    WatchRegistry(final WatchService watcher, final Predicate<Path> excluded, final Log log) {
+        this.watcher = watcher;
+        this.excluded = excluded;
+        this.log = log;
+    }
+
+    /**
+     * Registers the directory and all of its subdirectories.
+     *
+     * @param dir     the root directory to register
+     * @param handler the handler for changes in the directories
+     *
+     * @return the number of directories which were newly registered
+     *
+     * @throws IOException if an error occurs walking the directory tree or registering a directory
+     */
+    int registerTree(final Path dir, final WatchHandler handler) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try {
+            return ForkJoinPool.commonPool().invoke(new RegisterTask(dir, handler));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Registers a single directory, without its subdirectories, if it is not yet registered.
+     *
+     * @param dir     the directory to register
+     * @param handler the handler for changes in the directory
+     *
+     * @return {@code true} if the directory was registered, {@code false} if it was already registered or excluded
+     *
+     * @throws IOException if an error occurs registering the directory
+     */
+    boolean register(final Path dir, final WatchHandler handler) throws IOException {
+        return Files.isDirectory(dir) && !excluded.test(dir) && doRegister(dir, handler);
+    }
+
+    /**
+     * Checks whether the directory has been registered.
+     *
+     * @param dir the directory to check
+     *
+     * @return {@code true} if the directory is registered
+     */
+    boolean isRegistered(final Path dir) {
+        return registered.contains(dir);
+    }
+
+    /**
+     * Returns the context for the watch key.
+     *
+     * @param key the key to lookup the context for
+     *
+     * @return the context or {@code null} if the key is not registered
+     */
+    WatchContext get(final WatchKey key) {
+        return contexts.get(key);
+    }
+
+    /**
+     * Cancels the key and removes the directory it represents from the registry.
+     *
+     * @param key the key to cancel
+     */
+    void cancel(final WatchKey key) {
+        final WatchContext context = contexts.remove(key);
+        if (context != null) {
+            registered.remove(context.directory());
+        }
+        key.cancel();
+    }
+
+    /**
+     * The number of registered directories.
+     *
+     * @return the number of registered directories
+     */
+    int size() {
+        return contexts.size();
+    }
+
+    private boolean doRegister(final Path dir, final WatchHandler handler) throws IOException {
+        if (registered.add(dir)) {
+            final WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            contexts.put(key, WatchContext.of(dir, handler));
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[WATCH] Watching for changes in %s", dir));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private class RegisterTask extends RecursiveTask<Integer> {
+        private final Path dir;
+        private final WatchHandler handler;
+
+        private RegisterTask(final Path dir, final WatchHandler handler) {
+            this.dir = dir;
+            this.handler = handler;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (excluded.test(dir)) {
+                return 0;
+            }
+            try {
+                int count = doRegister(dir, handler) ? 1 : 0;
+                final List<RegisterTask> tasks = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+                        (path) -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))) {
+                    for (Path child : stream) {
+                        final RegisterTask task = new RegisterTask(child, handler);
+                        task.fork();
+                        tasks.add(task);
+                    }
+                }
+                for (RegisterTask task : tasks) {
+                    count += task.join();
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
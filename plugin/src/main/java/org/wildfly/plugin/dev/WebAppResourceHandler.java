@@ -45,7 +45,12 @@ class WebAppResourceHandler implements WatchHandler {
 
             @Override
             public boolean requiresRepackage() {
-                return true;
+                return requiresRedeploy;
+            }
+
+            @Override
+            public boolean requiresContentUpdate() {
+                return !requiresRedeploy;
             }
 
             @Override
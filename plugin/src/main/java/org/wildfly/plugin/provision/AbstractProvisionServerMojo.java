@@ -16,7 +16,11 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.xml.stream.XMLStreamException;
@@ -41,6 +45,7 @@ import org.jboss.galleon.maven.plugin.util.MavenArtifactRepositoryManager;
 import org.jboss.galleon.maven.plugin.util.MvnMessageWriter;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
 import org.jboss.galleon.util.IoUtils;
+import org.wildfly.channel.ChannelManifestCoordinate;
 import org.wildfly.channel.UnresolvedMavenArtifactException;
 import org.wildfly.plugin.common.PropertyNames;
 import org.wildfly.plugin.common.Utils;
@@ -57,6 +62,7 @@ import org.wildfly.plugin.tools.PluginProgressTracker;
 abstract class AbstractProvisionServerMojo extends AbstractMojo {
 
     private static final String MAVEN_REPO_LOCAL = "maven.repo.local";
+    private static final Pattern FEATURE_PACK_LOCATION = Pattern.compile("<feature-pack\\s[^>]*location=\"([^\"]+)\"");
 
     static {
         // This is odd, but if not set we should set the JBoss Logging provider to slf4j as that is what Maven uses
@@ -230,7 +236,88 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
     @Parameter(alias = "dry-run")
     boolean dryRun;
 
+    /**
+     * Whether provisioned servers should be cached and reused. The cache is keyed by the Galleon provisioning
+     * configuration, the Galleon options and the channels. If another build provisions the same server, the server is
+     * copied from the cache rather than being provisioned again.
+     * <p>
+     * Servers are only cached if the provisioned versions are fixed. If a feature-pack without a version is provisioned
+     * without channels, a feature-pack or channel manifest has a SNAPSHOT version, or a channel manifest has no version
+     * or is referenced by a URL, the server is provisioned.
+     * </p>
+     * <p>
+     * The cache keeps the 10 most recently used servers, older servers are deleted when a server is stored. Failing to
+     * store or copy a cached server does not fail the build, the server is provisioned instead.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(alias = "provisioning-cache", defaultValue = "false", property = PropertyNames.WILDFLY_PROVISIONING_CACHE)
+    boolean provisioningCache;
+
+    /**
+     * The directory of the provisioning cache. By default, the {@code wildfly-provisioning-cache} directory next to the
+     * local Maven repository, e.g. {@code ~/.m2/wildfly-provisioning-cache}.
+     *
+     * @since 6.1
+     */
+    @Parameter(alias = "provisioning-cache-dir", property = PropertyNames.WILDFLY_PROVISIONING_CACHE_DIR)
+    String provisioningCacheDir;
+
+    /**
+     * Whether the files of a cached server should be hard linked rather than copied, which saves disk space and I/O.
+     * The configuration, data, deployments, log and tmp directories as well as the {@code bin} directory are always
+     * copied, as they are modified after provisioning. If the provisioning cache and the server are on different file
+     * systems the files are copied.
+     * <p>
+     * Note that modifying a linked file, e.g. a module, in the provisioned server modifies the cached server as well.
+     * Only enable this if the files of the provisioned server are not modified in place.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(alias = "provisioning-cache-hard-links", defaultValue = "false", property = PropertyNames.WILDFLY_PROVISIONING_CACHE_HARD_LINKS)
+    boolean provisioningCacheHardLinks;
+
+    /**
+     * The channel lock file, relative to the project directory. If the file does not exist, or the channels changed
+     * since it was written, the channels are resolved and the lock file is written with the version and the SHA-256
+     * checksum of each artifact resolved from the channels.
+     * <p>
+     * Otherwise the versions of the lock file are used and the channels are not resolved, which avoids resolving the
+     * channel manifests and the artifact metadata from the remote repositories. The checksums of the resolved artifacts
+     * must match the checksums of the lock file. Delete the lock file to resolve the latest versions of the channels.
+     * </p>
+     * <p>
+     * The channels are considered changed if the name or manifest of a channel, the content of a manifest referenced by
+     * a URL or the repositories changed. The lock file also records the versions of the channel manifests, which are
+     * recorded in the {@code .installation} directory of the server provisioned with the lock file. If the server is
+     * copied from the provisioning cache, the lock file is not written.
+     * </p>
+     *
+     * @since 6.1
+     */
+    @Parameter(alias = "channels-lock-file", property = PropertyNames.CHANNELS_LOCK_FILE)
+    String channelsLockFile;
+
+    /**
+     * Whether a report of the provisioning should be written to {@code wildfly-provisioning-report.json} in the build
+     * directory. The JSON report contains the time spent in each phase of the goal, e.g. the channel resolution, the
+     * Galleon phases, the execution of the CLI scripts or the packaging of the bootable JAR. It also contains the number
+     * of artifacts resolved, the number of artifacts and metadata downloaded and the number of bytes downloaded.
+     *
+     * @since 6.1
+     */
+    @Parameter(alias = "provisioning-report", defaultValue = "false", property = PropertyNames.WILDFLY_PROVISIONING_REPORT)
+    boolean provisioningReport;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    String pluginVersion;
+
     private Path wildflyDir;
+    private ProvisioningReport report;
+    // The cache key of the server if it was provisioned and should be stored in the cache
+    private String provisioningCacheKey;
 
     protected MavenRepoManager artifactResolver;
 
@@ -250,18 +337,28 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
                     " of %s:%s", project.getGroupId(), project.getArtifactId()));
             return;
         }
+        report = provisioningReport && !dryRun ? ProvisioningReport.of(project.getId(), getGoal()) : null;
+        final RepositorySystemSession resolutionSession = report == null ? repoSession : report.track(repoSession);
+        long start = System.nanoTime();
         enrichRepositories();
+        recordPhase("repository-enrichment", start);
+        ChannelLock channelLock = null;
         if (channels == null || channels.isEmpty()) {
-            artifactResolver = offlineProvisioning ? new MavenArtifactRepositoryManager(repoSystem, repoSession)
-                    : new MavenArtifactRepositoryManager(repoSystem, repoSession, repositories);
+            artifactResolver = offlineProvisioning ? new MavenArtifactRepositoryManager(repoSystem, resolutionSession)
+                    : new MavenArtifactRepositoryManager(repoSystem, resolutionSession, repositories);
         } else {
+            start = System.nanoTime();
+            if (channelsLockFile != null) {
+                channelLock = readChannelLock(targetPath);
+            }
             try {
                 artifactResolver = new ChannelMavenArtifactRepositoryManager(channels,
-                        repoSystem, repoSession, repositories,
-                        getLog(), offlineProvisioning);
+                        repoSystem, resolutionSession, repositories,
+                        getLog(), offlineProvisioning, channelLock);
             } catch (MalformedURLException | UnresolvedMavenArtifactException ex) {
                 throw new MojoExecutionException(ex.getLocalizedMessage(), ex);
             }
+            recordPhase("channel-resolution", start);
         }
         if (!Paths.get(provisioningDir).isAbsolute() && (targetPath.equals(wildflyDir) || !wildflyDir.startsWith(targetPath))) {
             throw new MojoExecutionException("provisioning-dir " + provisioningDir
@@ -274,15 +371,40 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
         if (originalMavenRepoLocal == null) {
             System.setProperty(MAVEN_REPO_LOCAL, session.getSettings().getLocalRepository());
         }
+        boolean success = false;
+        boolean cached = false;
         try {
             try {
-                provisionServer(wildflyDir);
+                cached = provisionServer(wildflyDir);
                 if (!dryRun) {
-                    if (artifactResolver instanceof ChannelMavenArtifactRepositoryManager) {
-                        ((ChannelMavenArtifactRepositoryManager) artifactResolver).done(wildflyDir);
+                    if (!cached) {
+                        start = System.nanoTime();
+                        if (artifactResolver instanceof ChannelMavenArtifactRepositoryManager) {
+                            final ChannelMavenArtifactRepositoryManager channelResolver =
+                                    (ChannelMavenArtifactRepositoryManager) artifactResolver;
+                            channelResolver.done(wildflyDir);
+                            if (channelsLockFile != null && channelLock == null) {
+                                final Path lockFile = resolvePath(project, Path.of(channelsLockFile));
+                                channelResolver.writeLock(lockFile, ChannelLock.fingerprint(channels, repositories),
+                                        wildflyDir);
+                                getLog().info(String.format("Wrote the channel lock file %s", lockFile));
+                            }
+                        }
+                        recordPhase("channel-metadata", start);
+                        if (provisioningCacheKey != null) {
+                            start = System.nanoTime();
+                            getProvisioningCache().store(provisioningCacheKey, wildflyDir);
+                            recordPhase("provisioning-cache-store", start);
+                        }
+                    } else if (channelsLockFile != null && channelLock == null) {
+                        // The channels have not been resolved, the checksums of the artifacts are unknown
+                        getLog().info(String.format("The server was copied from the provisioning cache, the channel lock"
+                                + " file %s is written the next time the server is provisioned.",
+                                resolvePath(project, Path.of(channelsLockFile))));
                     }
                     serverProvisioned(wildflyDir);
                 }
+                success = true;
             } catch (ProvisioningException | IOException | XMLStreamException ex) {
                 throw new MojoExecutionException("Provisioning failed", ex);
             }
@@ -294,6 +416,27 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
             if (originalMavenRepoLocal == null) {
                 System.clearProperty(MAVEN_REPO_LOCAL);
             }
+            if (report != null) {
+                final Path reportFile = targetPath.resolve(ProvisioningReport.FILE_NAME);
+                try {
+                    report.write(reportFile, success, cached);
+                    getLog().info(String.format("Wrote the provisioning report %s", reportFile));
+                } catch (IOException e) {
+                    getLog().warn(String.format("Failed to write the provisioning report %s", reportFile), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the time spent in a phase of the goal, if the provisioning report is enabled.
+     *
+     * @param name  the name of the phase
+     * @param start the start of the phase, as returned by {@link System#nanoTime()}
+     */
+    void recordPhase(final String name, final long start) {
+        if (report != null) {
+            report.phase(name, start);
         }
     }
 
@@ -305,7 +448,14 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
 
     protected abstract void serverProvisioned(Path jbossHome) throws MojoExecutionException, MojoFailureException;
 
-    private void provisionServer(Path home) throws ProvisioningException,
+    /**
+     * Provisions the server.
+     *
+     * @param home the directory to provision the server to
+     *
+     * @return {@code true} if the server was copied from the provisioning cache, otherwise {@code false}
+     */
+    private boolean provisionServer(Path home) throws ProvisioningException,
             MojoExecutionException, IOException, XMLStreamException {
         GalleonBuilder galleonBuilder = new GalleonBuilder();
         galleonBuilder.addArtifactResolver(artifactResolver);
@@ -342,15 +492,34 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
                 } else {
                     pm.storeProvisioningConfig(config, file);
                 }
-                return;
+                return false;
+            }
+            if (provisioningCache) {
+                final long start = System.nanoTime();
+                final String key = computeProvisioningCacheKey(pm, config, provisionFromFile ? resolvedProvisioningFile : null);
+                if (key != null) {
+                    if (getProvisioningCache().materialize(key, home)) {
+                        getLog().info(String.format("Copied the server from the provisioning cache to %s", home));
+                        recordPhase("provisioning-cache-copy", start);
+                        return true;
+                    }
+                    provisioningCacheKey = key;
+                }
+                recordPhase("provisioning-cache-lookup", start);
             }
             getLog().info("Provisioning server in " + home);
-            PluginProgressTracker.initTrackers(pm, new MavenJBossLogger(getLog()));
+            if (report == null) {
+                PluginProgressTracker.initTrackers(pm, new MavenJBossLogger(getLog()));
+            } else {
+                report.trackGalleonPhases(pm, new MavenJBossLogger(getLog()));
+            }
+            final long start = System.nanoTime();
             if (provisionFromFile) {
                 pm.provision(resolvedProvisioningFile, galleonOptions);
             } else {
                 pm.provision(config, galleonOptions);
             }
+            recordPhase("galleon-provisioning", start);
             // Check that at least the standalone or domain directories have been generated.
             if (!Files.exists(home.resolve("standalone")) && !Files.exists(home.resolve("domain"))) {
                 getLog().error("Invalid galleon provisioning, no server provisioned in " + home + ". Make sure "
@@ -362,6 +531,124 @@ abstract class AbstractProvisionServerMojo extends AbstractMojo {
                 pm.storeProvisioningConfig(config, file);
             }
         }
+        return false;
+    }
+
+    /**
+     * Reads the channel lock file and writes the channel manifest of the locked versions.
+     *
+     * @param targetPath the build directory
+     *
+     * @return the lock or {@code null} if the file does not exist or the channels changed
+     */
+    private ChannelLock readChannelLock(final Path targetPath) throws MojoExecutionException {
+        final Path file = resolvePath(project, Path.of(channelsLockFile));
+        try {
+            final ChannelLock lock = ChannelLock.read(file);
+            if (lock == null) {
+                getLog().info(String.format("No channel lock file found at %s, resolving the channels", file));
+                return null;
+            }
+            if (!lock.matches(channels, repositories)) {
+                getLog().info(String.format("The channels changed since the channel lock file %s was written, "
+                        + "resolving the channels", file));
+                return null;
+            }
+            lock.writeManifest(targetPath.resolve("wildfly-channel-lock-manifest.yaml"));
+            getLog().info(String.format("Using the versions of the channel lock file %s", file));
+            return lock;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the channel lock file " + file, e);
+        }
+    }
+
+    private ProvisioningCache getProvisioningCache() {
+        final Path dir = provisioningCacheDir == null
+                ? Path.of(session.getSettings().getLocalRepository()).toAbsolutePath().getParent()
+                        .resolve("wildfly-provisioning-cache")
+                : Path.of(provisioningCacheDir);
+        return ProvisioningCache.of(dir, provisioningCacheHardLinks, getLog());
+    }
+
+    /**
+     * Computes the key of the server in the provisioning cache.
+     *
+     * @param pm               the provisioning
+     * @param config           the provisioning configuration
+     * @param provisioningFile the provisioning file used or {@code null} if the configuration is used
+     *
+     * @return the key or {@code null} if the provisioned versions are not fixed and the server cannot be cached
+     */
+    private String computeProvisioningCacheKey(final Provisioning pm, final GalleonProvisioningConfig config,
+            final Path provisioningFile) throws ProvisioningException, IOException {
+        final Path configFile = Files.createTempFile("wildfly-provisioning", ".xml");
+        final String configXml;
+        try {
+            pm.storeProvisioningConfig(config, configFile);
+            configXml = Files.readString(configFile);
+        } finally {
+            Files.deleteIfExists(configFile);
+        }
+        final ProvisioningCache.KeyBuilder key = ProvisioningCache.keyBuilder()
+                .add("plugin", pluginVersion)
+                .add("config", configXml)
+                .add("record-state", Boolean.toString(recordProvisioningState));
+        if (provisioningFile != null) {
+            key.add("provisioning-file", Files.readAllBytes(provisioningFile));
+        }
+        for (Map.Entry<String, String> option : new TreeMap<>(galleonOptions).entrySet()) {
+            key.add("option:" + option.getKey(), option.getValue());
+        }
+        final boolean hasChannels = channels != null && !channels.isEmpty();
+        final Matcher matcher = FEATURE_PACK_LOCATION.matcher(configXml);
+        while (matcher.find()) {
+            // Without channels the feature-pack locations must have a version, with channels a version is optional
+            if (isSnapshot(matcher.group(1)) || (!hasChannels && !isFixedVersion(matcher.group(1)))) {
+                getLog().info(String.format("The version of feature-pack %s is not fixed, the provisioning cache is"
+                        + " not used.", matcher.group(1)));
+                return null;
+            }
+        }
+        if (hasChannels) {
+            for (ChannelConfiguration channel : channels) {
+                final ChannelManifestCoordinate manifest = channel.getManifest();
+                if (manifest == null || manifest.getUrl() != null || !isFixedVersion(manifest.getVersion())) {
+                    getLog().info("The channel manifests do not have a fixed version, the provisioning cache is not used.");
+                    return null;
+                }
+                key.add("channel", manifest.getGroupId() + ":" + manifest.getArtifactId() + ":" + manifest.getVersion());
+            }
+        }
+        return key.build();
+    }
+
+    /**
+     * Checks whether a feature-pack location or a version refers to a fixed version. A SNAPSHOT version is not fixed,
+     * as it can be deployed again with different content.
+     *
+     * @param location the feature-pack location or version, can be {@code null}
+     *
+     * @return {@code true} if the version is fixed
+     */
+    private static boolean isFixedVersion(final String location) {
+        if (location == null || location.isBlank() || isSnapshot(location)) {
+            return false;
+        }
+        // A location with a build, e.g. wildfly@maven(org.jboss.universe:community-universe)#30.0.0.Final
+        final int hash = location.indexOf('#');
+        if (hash >= 0) {
+            return hash < location.length() - 1;
+        }
+        // A version, e.g. 30.0.0.Final
+        if (location.indexOf(':') < 0) {
+            return location.indexOf('@') < 0;
+        }
+        // A Maven location, e.g. org.wildfly:wildfly-galleon-pack:30.0.0.Final
+        return location.indexOf('@') < 0 && location.split(":").length > 2;
+    }
+
+    private static boolean isSnapshot(final String location) {
+        return location.toUpperCase(Locale.ROOT).contains("SNAPSHOT");
     }
 
     protected GalleonProvisioningConfig buildGalleonConfig(GalleonBuilder galleonBuilder)
@@ -59,6 +59,13 @@ public class ChannelConfiguration {
         }
     }
 
+    /**
+     * @return the name of the channel or {@code null}
+     */
+    public String getName() {
+        return name;
+    }
+
     /**
      * Set the name of the channel.
      * This information is stored in the .installation directory of the provisioned server.
@@ -0,0 +1,322 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelManifest;
+import org.wildfly.channel.ChannelManifestCoordinate;
+import org.wildfly.channel.ChannelManifestMapper;
+import org.wildfly.channel.Repository;
+import org.wildfly.channel.Stream;
+
+/**
+ * A lock file of the artifacts resolved from channels. The lock file records the version and the SHA-256 checksum of
+ * each artifact resolved from a channel, the versions of the channel manifests and a fingerprint of the channel
+ * definitions.
+ * <p>
+ * While the channel definitions are unchanged, the locked versions are used through a local channel manifest generated
+ * from the lock file. No channel manifest or artifact metadata has to be resolved from the remote repositories. The
+ * checksums of the resolved artifacts are verified against the lock file.
+ * </p>
+ * The format of the file is:
+ *
+ * <pre>
+ * # comment
+ * channels=&lt;fingerprint&gt;
+ * manifest-versions=&lt;base64 encoded manifest_version.yaml of the provisioned server&gt;
+ * groupId:artifactId:extension:classifier=version|sha256
+ * </pre>
+ */
+class ChannelLock {
+    private static final String CHANNELS_KEY = "channels";
+    private static final String MANIFEST_VERSIONS_KEY = "manifest-versions";
+
+    private final String fingerprint;
+    private final String manifestVersions;
+    // The version and checksum of the artifacts by groupId:artifactId:extension:classifier
+    private final Map<String, String[]> entries;
+    private Path manifest;
+
+    private ChannelLock(final String fingerprint, final String manifestVersions, final Map<String, String[]> entries) {
+        this.fingerprint = fingerprint;
+        this.manifestVersions = manifestVersions;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the lock file.
+     *
+     * @param file the lock file
+     *
+     * @return the lock or {@code null} if the file does not exist
+     *
+     * @throws IOException if the file could not be read or is invalid
+     */
+    static ChannelLock read(final Path file) throws IOException {
+        if (Files.notExists(file)) {
+            return null;
+        }
+        String fingerprint = null;
+        String manifestVersions = null;
+        final Map<String, String[]> entries = new LinkedHashMap<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final int index = line.indexOf('=');
+            if (index < 0) {
+                throw new IOException(String.format("Invalid line %d in channel lock file %s", lineNumber, file));
+            }
+            final String key = line.substring(0, index).trim();
+            final String value = line.substring(index + 1).trim();
+            if (CHANNELS_KEY.equals(key)) {
+                fingerprint = value;
+                continue;
+            }
+            if (MANIFEST_VERSIONS_KEY.equals(key)) {
+                try {
+                    manifestVersions = new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(String.format("Invalid line %d in channel lock file %s", lineNumber, file), e);
+                }
+                continue;
+            }
+            final String[] versionAndChecksum = value.split("\\|", 2);
+            if (key.split(":", -1).length != 4 || versionAndChecksum.length != 2) {
+                throw new IOException(String.format("Invalid line %d in channel lock file %s", lineNumber, file));
+            }
+            entries.put(key, versionAndChecksum);
+        }
+        if (fingerprint == null) {
+            throw new IOException(String.format("The channel lock file %s does not define the channels", file));
+        }
+        return new ChannelLock(fingerprint, manifestVersions, entries);
+    }
+
+    /**
+     * Writes the lock file for the resolved artifacts.
+     *
+     * @param file             the lock file
+     * @param fingerprint      the fingerprint of the channel definitions
+     * @param manifestVersions the versions of the channel manifests in the format of the {@code manifest_version.yaml}
+     *                             file of the provisioned server, or {@code null} if unknown
+     * @param streams          the streams resolved from the channels
+     * @param artifacts        the resolved artifacts, the artifacts without a stream are ignored
+     *
+     * @throws IOException if the file could not be written
+     */
+    static void write(final Path file, final String fingerprint, final String manifestVersions,
+            final Collection<Stream> streams, final Collection<MavenArtifact> artifacts) throws IOException {
+        final Map<String, String> versions = new TreeMap<>();
+        for (Stream stream : streams) {
+            versions.put(stream.getGroupId() + ":" + stream.getArtifactId(), stream.getVersion());
+        }
+        final Map<String, String> lines = new TreeMap<>();
+        for (MavenArtifact artifact : artifacts) {
+            final String version = versions.get(artifact.getGroupId() + ":" + artifact.getArtifactId());
+            if (version != null && version.equals(artifact.getVersion()) && artifact.getPath() != null) {
+                lines.put(key(artifact), version + "|" + checksum(artifact.getPath()));
+            }
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# Channel lock file generated by the wildfly-maven-plugin. Delete it to resolve the channels again.");
+            writer.newLine();
+            writer.write(CHANNELS_KEY + "=" + fingerprint);
+            writer.newLine();
+            if (manifestVersions != null) {
+                writer.write(MANIFEST_VERSIONS_KEY + "="
+                        + Base64.getEncoder().encodeToString(manifestVersions.getBytes(StandardCharsets.UTF_8)));
+                writer.newLine();
+            }
+            for (Map.Entry<String, String> line : lines.entrySet()) {
+                writer.write(line.getKey() + "=" + line.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the channel definitions. The fingerprint includes the name and the manifest of each
+     * channel, the content of the manifests referenced by a URL and the repositories the channels resolve from.
+     *
+     * @param channels     the channels
+     * @param repositories the repositories of the channels
+     *
+     * @return the fingerprint
+     *
+     * @throws IOException if the content of a manifest referenced by a URL could not be read
+     */
+    static String fingerprint(final List<ChannelConfiguration> channels, final List<RemoteRepository> repositories)
+            throws IOException {
+        final MessageDigest digest = newDigest();
+        for (ChannelConfiguration channel : channels) {
+            update(digest, "channel", channel.getName());
+            final ChannelManifestCoordinate manifest = channel.getManifest();
+            if (manifest != null && manifest.getUrl() != null) {
+                update(digest, "url", manifest.getUrl().toExternalForm());
+                // The content of a manifest referenced by a URL may change without the URL changing
+                try (InputStream in = manifest.getUrl().openStream()) {
+                    update(digest, "content", HexFormat.of().formatHex(newDigest().digest(in.readAllBytes())));
+                }
+            } else if (manifest != null) {
+                update(digest, "manifest", manifest.getGroupId() + ":" + manifest.getArtifactId() + ":"
+                        + manifest.getVersion());
+            }
+        }
+        for (RemoteRepository repository : repositories) {
+            update(digest, "repository", repository.getId() + "|" + repository.getUrl());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Checks whether the lock file has been generated for the channels.
+     *
+     * @param channels     the channels
+     * @param repositories the repositories of the channels
+     *
+     * @return {@code true} if the channel definitions did not change since the lock file was generated
+     *
+     * @throws IOException if the content of a manifest referenced by a URL could not be read
+     */
+    boolean matches(final List<ChannelConfiguration> channels, final List<RemoteRepository> repositories)
+            throws IOException {
+        return fingerprint.equals(fingerprint(channels, repositories));
+    }
+
+    /**
+     * The versions of the channel manifests the lock file has been generated from.
+     *
+     * @return the content of the {@code manifest_version.yaml} file or {@code null} if the lock file does not record the
+     *             versions
+     */
+    String manifestVersions() {
+        return manifestVersions;
+    }
+
+    /**
+     * Writes the channel manifest defining a stream for each locked artifact.
+     *
+     * @param file the manifest file to write
+     *
+     * @throws IOException if the manifest could not be written
+     */
+    void writeManifest(final Path file) throws IOException {
+        final Map<String, Stream> streams = new TreeMap<>();
+        for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+            final String[] coords = entry.getKey().split(":", -1);
+            final String version = entry.getValue()[0];
+            final Stream previous = streams.put(coords[0] + ":" + coords[1], new Stream(coords[0], coords[1], version));
+            if (previous != null && !previous.getVersion().equals(version)) {
+                throw new IOException(String.format("The channel lock file defines the versions %s and %s for %s:%s",
+                        previous.getVersion(), version, coords[0], coords[1]));
+            }
+        }
+        final ChannelManifest channelManifest = new ChannelManifest("locked", null, null, streams.values());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, ChannelManifestMapper.toYaml(channelManifest), StandardCharsets.UTF_8);
+        this.manifest = file;
+    }
+
+    /**
+     * Creates the channel resolving the locked versions from the manifest written by {@link #writeManifest(Path)}.
+     *
+     * @param repositories the repositories to resolve the artifacts from
+     *
+     * @return the channel
+     *
+     * @throws IOException if the manifest has not been written
+     */
+    Channel toChannel(final List<RemoteRepository> repositories) throws IOException {
+        if (manifest == null) {
+            throw new IOException("The channel manifest of the lock file has not been written");
+        }
+        final List<Repository> repos = new ArrayList<>();
+        for (RemoteRepository r : repositories) {
+            repos.add(new Repository(r.getId(), r.getUrl()));
+        }
+        return new Channel("locked", null, null, repos, new ChannelManifestCoordinate(manifest.toUri().toURL()), null,
+                null);
+    }
+
+    /**
+     * Verifies the checksum of a resolved artifact. Artifacts which are not locked are not verified.
+     *
+     * @param artifact the resolved artifact
+     *
+     * @return {@code true} if the artifact is not locked or the checksum matches, otherwise {@code false}
+     *
+     * @throws IOException if the artifact could not be read
+     */
+    boolean verify(final MavenArtifact artifact) throws IOException {
+        final String[] versionAndChecksum = entries.get(key(artifact));
+        if (versionAndChecksum == null || artifact.getPath() == null
+                || !versionAndChecksum[0].equals(artifact.getVersion())) {
+            return true;
+        }
+        return versionAndChecksum[1].equalsIgnoreCase(checksum(artifact.getPath()));
+    }
+
+    private static String key(final MavenArtifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":"
+                + (artifact.getExtension() == null ? "" : artifact.getExtension()) + ":"
+                + (artifact.getClassifier() == null ? "" : artifact.getClassifier());
+    }
+
+    private static String checksum(final Path file) throws IOException {
+        final MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[8192];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(final MessageDigest digest, final String name, final String value) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is a required algorithm of the JDK
+            throw new IllegalStateException(e);
+        }
+    }
+}
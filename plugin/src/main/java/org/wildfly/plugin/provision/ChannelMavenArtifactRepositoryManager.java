@@ -12,17 +12,19 @@ import java.net.MalformedURLException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
@@ -59,6 +61,17 @@ import org.wildfly.prospero.metadata.ProsperoMetadataUtils;
 public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager, ChannelResolvable, MavenStreamResolver {
 
     private static final String REQUIRE_CHANNEL_FOR_ALL_ARTIFACT = "org.wildfly.plugins.galleon.all.artifact.requires.channel.resolution";
+    // The maximum number of feature-packs whose channel resolution is retained
+    private static final int MAX_CHANNEL_RESOLUTIONS = 64;
+    // The channel resolution of the feature-packs opened in the JVM, shared by the modules of a multi-module build. The
+    // least recently used resolutions are evicted, as the JVM may be reused for many builds, e.g. by the Maven daemon.
+    private static final Map<String, String> CHANNEL_RESOLUTIONS = Collections
+            .synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                    return size() > MAX_CHANNEL_RESOLUTIONS;
+                }
+            });
 
     private final ChannelSession channelSession;
     private final List<Channel> channels = new ArrayList<>();
@@ -66,12 +79,38 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
     private final RepositorySystem system;
     private final DefaultRepositorySystemSession session;
     private final List<RemoteRepository> repositories;
+    // Whether a ZIP artifact is a feature-pack requiring channel resolution, by the coordinates of the artifact
+    private final Map<String, Boolean> fpRequireChannelResults = new HashMap<>();
+    private final ChannelLock lock;
+    // The resolved artifacts, by groupId:artifactId:extension:classifier:version
+    private final Map<String, MavenArtifact> resolvedArtifacts = new LinkedHashMap<>();
 
     public ChannelMavenArtifactRepositoryManager(List<ChannelConfiguration> channels,
             RepositorySystem system,
             RepositorySystemSession contextSession,
             List<RemoteRepository> repositories, Log log, boolean offline)
             throws MalformedURLException, UnresolvedMavenArtifactException, MojoExecutionException {
+        this(channels, system, contextSession, repositories, log, offline, null);
+    }
+
+    /**
+     * Creates a new repository manager.
+     *
+     * @param channels       the channels
+     * @param system         the repository system
+     * @param contextSession the repository session
+     * @param repositories   the remote repositories
+     * @param log            the log
+     * @param offline        {@code true} if artifacts must not be resolved from the remote repositories
+     * @param lock           the channel lock whose manifest has been written, or {@code null} to resolve the channels.
+     *                           If not {@code null}, the locked versions are resolved instead of the channels, and the
+     *                           checksums of the resolved artifacts are verified.
+     */
+    ChannelMavenArtifactRepositoryManager(List<ChannelConfiguration> channels,
+            RepositorySystem system,
+            RepositorySystemSession contextSession,
+            List<RemoteRepository> repositories, Log log, boolean offline, ChannelLock lock)
+            throws MalformedURLException, UnresolvedMavenArtifactException, MojoExecutionException {
         if (channels.isEmpty()) {
             throw new MojoExecutionException("No channel specified.");
         }
@@ -99,7 +138,17 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
             };
             factory = new VersionResolverFactory(system, session, mapper);
         }
-        channelSession = new ChannelSession(this.channels, factory);
+        if (lock == null) {
+            channelSession = new ChannelSession(this.channels, factory);
+        } else {
+            try {
+                channelSession = new ChannelSession(List.of(lock.toChannel(offline ? Collections.emptyList() : repositories)),
+                        factory);
+            } catch (IOException e) {
+                throw new MojoExecutionException(e.getLocalizedMessage(), e);
+            }
+        }
+        this.lock = lock;
         this.system = system;
     }
 
@@ -123,19 +172,29 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
      * <p>
      * The set of artifacts must be split in 2 groups, the ones that require resolution from the channel,
      * the ones that can be resolved directly. The failure handling is different in the two groups.
+     *
+     * <p>
+     * The feature-packs which have to be inspected to split the artifacts, and the artifacts without a stream in the
+     * channels, are resolved in bulk as well. The number of concurrent downloads is bounded by the Aether connector
+     * thread pool, which can be configured with the {@code aether.connector.basic.threads} property.
      */
     @Override
     public void resolveAll(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
         if (artifacts == null || artifacts.isEmpty()) {
             return;
         }
+        final long start = System.currentTimeMillis();
+        prefetchFeaturePacks(artifacts);
         // split the artifacts into requiring channels and not requiring channels
-        final List<MavenArtifact> artifactsRequiringChannels = artifacts.stream()
-                .filter(a -> requiresChannel(a))
-                .collect(Collectors.toList());
-        final List<MavenArtifact> artifactsNotRequiringChannels = artifacts.stream()
-                .filter(a -> !requiresChannel(a))
-                .collect(Collectors.toList());
+        final List<MavenArtifact> artifactsRequiringChannels = new ArrayList<>();
+        final List<MavenArtifact> artifactsNotRequiringChannels = new ArrayList<>();
+        for (MavenArtifact artifact : artifacts) {
+            if (requiresChannel(artifact)) {
+                artifactsRequiringChannels.add(artifact);
+            } else {
+                artifactsNotRequiringChannels.add(artifact);
+            }
+        }
         // bulk resolve artifacts requiring channels - if any fail, throw exception
         MavenArtifactMapper mapper = new MavenArtifactMapper(artifactsRequiringChannels);
         List<org.wildfly.channel.MavenArtifact> channelArtifacts = channelSession
@@ -144,66 +203,148 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
 
         // bulk resolve other artifacts, failure are expected and resolution occurs with the original version
         final MavenArtifactMapper mapperNotRequiringChannels = new MavenArtifactMapper(artifactsNotRequiringChannels);
-        resolveArtifactsWithFallbackVersions(mapperNotRequiringChannels, mapperNotRequiringChannels.toChannelArtifacts());
+        final int direct = resolveArtifactsWithFallbackVersions(mapperNotRequiringChannels,
+                mapperNotRequiringChannels.toChannelArtifacts());
+        for (MavenArtifact artifact : artifacts) {
+            recordResolution(artifact);
+        }
+        log.info(String.format("Resolved %d artifact(s), %d without a channel stream, in %d ms", artifacts.size(), direct,
+                System.currentTimeMillis() - start));
     }
 
-    private void resolveArtifactsWithFallbackVersions(MavenArtifactMapper mapperNotRequiringChannels,
+    /**
+     * Resolves the artifacts from the channels. The artifacts without a stream in the channels are resolved directly
+     * with their original version and the remaining artifacts are resolved again, until all artifacts are resolved.
+     * Each round removes at least one artifact, otherwise the resolution fails, so the number of rounds is bounded by
+     * the number of artifacts without a stream.
+     *
+     * @return the number of artifacts resolved directly
+     */
+    private int resolveArtifactsWithFallbackVersions(MavenArtifactMapper mapperNotRequiringChannels,
             List<ArtifactCoordinate> coordinates) throws MavenUniverseException {
-        List<org.wildfly.channel.MavenArtifact> channelArtifacts;
-        try {
-            channelArtifacts = channelSession.resolveMavenArtifacts(coordinates);
-            mapperNotRequiringChannels.applyResolution(channelArtifacts);
-        } catch (ArtifactTransferException e) {
-            throw new MavenUniverseException(e.getLocalizedMessage(), e);
-        } catch (NoStreamFoundException e) {
-            handleMissingStreams(mapperNotRequiringChannels, coordinates, e);
-        } catch (UnresolvedMavenArtifactException e) {
-            throw new MavenUniverseException(e.getLocalizedMessage(), e);
+        // The requests by their coordinates without a version, which is how the missing streams are reported
+        final Map<ArtifactCoordinate, List<ArtifactCoordinate>> pending = new LinkedHashMap<>();
+        for (ArtifactCoordinate a : coordinates) {
+            pending.computeIfAbsent(new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(), a.getExtension(),
+                    a.getClassifier(), ""), (key) -> new ArrayList<>()).add(a);
+        }
+        List<ArtifactCoordinate> requests = coordinates;
+        int direct = 0;
+        int round = 0;
+        while (!requests.isEmpty()) {
+            round++;
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Resolving %d artifact(s) from the channels, round %d", requests.size(), round));
+            }
+            try {
+                mapperNotRequiringChannels.applyResolution(channelSession.resolveMavenArtifacts(requests));
+                return direct;
+            } catch (ArtifactTransferException e) {
+                throw new MavenUniverseException(e.getLocalizedMessage(), e);
+            } catch (NoStreamFoundException e) {
+                // remove unresolvedArtifacts from the list of artifact to resolve
+                boolean removed = false;
+                for (ArtifactCoordinate a : e.getUnresolvedArtifacts()) {
+                    removed |= pending.remove(a) != null;
+                }
+                if (!removed) {
+                    // The same artifacts would be resolved again
+                    throw new MavenUniverseException(e.getLocalizedMessage(), e);
+                }
+                direct += handleMissingStreams(mapperNotRequiringChannels, e);
+                requests = new ArrayList<>(coordinates.size());
+                for (List<ArtifactCoordinate> values : pending.values()) {
+                    requests.addAll(values);
+                }
+            } catch (UnresolvedMavenArtifactException e) {
+                throw new MavenUniverseException(e.getLocalizedMessage(), e);
+            }
         }
+        return direct;
     }
 
     /**
-     * The failed artifacts are resolved directly, the others are resolved in bulk.
+     * The artifacts without a stream are resolved directly, with their original version, in a single bulk request.
      *
-     * @param mapperNotRequiringChannels
-     * @param coordinates
-     * @param e
-     * @throws MavenUniverseException
+     * @return the number of artifacts resolved
      */
-    private void handleMissingStreams(MavenArtifactMapper mapperNotRequiringChannels, List<ArtifactCoordinate> coordinates,
-            UnresolvedMavenArtifactException e) throws MavenUniverseException {
-        final Set<ArtifactCoordinate> unresolvedArtifacts = e.getUnresolvedArtifacts();
-        // resolve unresolvedArtifacts directly
-        for (ArtifactCoordinate a : unresolvedArtifacts) {
-            final List<MavenArtifact> missingArtifacts = mapperNotRequiringChannels.get(
-                    new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(),
-                            a.getExtension(), a.getClassifier(), a.getVersion()));
-            for (MavenArtifact missingArtifact : missingArtifacts) {
+    private int handleMissingStreams(MavenArtifactMapper mapperNotRequiringChannels, NoStreamFoundException e)
+            throws MavenUniverseException {
+        final Map<ArtifactCoordinate, List<MavenArtifact>> missingArtifacts = new LinkedHashMap<>();
+        for (ArtifactCoordinate a : e.getUnresolvedArtifacts()) {
+            for (MavenArtifact missingArtifact : mapperNotRequiringChannels.get(a)) {
                 if (missingArtifact.getVersion() == null) {
                     throw new MavenUniverseException(e.getLocalizedMessage(), e);
                 }
-                final org.wildfly.channel.MavenArtifact mavenArtifact = channelSession.resolveDirectMavenArtifact(
-                        missingArtifact.getGroupId(), missingArtifact.getArtifactId(),
-                        missingArtifact.getExtension(), missingArtifact.getClassifier(), missingArtifact.getVersion());
-                missingArtifact.setPath(mavenArtifact.getFile().toPath());
+                missingArtifacts.computeIfAbsent(toCoordinate(missingArtifact.getGroupId(), missingArtifact.getArtifactId(),
+                        missingArtifact.getExtension(), missingArtifact.getClassifier(), missingArtifact.getVersion()),
+                        (key) -> new ArrayList<>()).add(missingArtifact);
             }
         }
-        // remove unresolvedArtifacts from the list of artifact to resolve
-        final List<ArtifactCoordinate> requests = new ArrayList<>();
-        for (ArtifactCoordinate a : coordinates) {
-            if (!unresolvedArtifacts.contains(
-                    new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(), a.getExtension(), a.getClassifier(), ""))) {
-                requests.add(a);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Resolving %d artifact(s) without a channel stream using their original version",
+                    missingArtifacts.size()));
+        }
+        final List<org.wildfly.channel.MavenArtifact> resolved;
+        try {
+            resolved = channelSession.resolveDirectMavenArtifacts(new ArrayList<>(missingArtifacts.keySet()));
+        } catch (UnresolvedMavenArtifactException ex) {
+            // if the artifacts can not be resolved directly either, we abort
+            throw new MavenUniverseException(ex.getLocalizedMessage(), ex);
+        }
+        int count = 0;
+        for (org.wildfly.channel.MavenArtifact mavenArtifact : resolved) {
+            final List<MavenArtifact> targets = missingArtifacts.get(toCoordinate(mavenArtifact.getGroupId(),
+                    mavenArtifact.getArtifactId(), mavenArtifact.getExtension(), mavenArtifact.getClassifier(),
+                    mavenArtifact.getVersion()));
+            if (targets == null) {
+                throw new MavenUniverseException("Unknown artifact " + mavenArtifact);
+            }
+            for (MavenArtifact target : targets) {
+                target.setPath(mavenArtifact.getFile().toPath());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resolves, in a single bulk request, the ZIP artifacts which are inspected to know whether they are feature-packs
+     * requiring a channel. Each of them would otherwise be downloaded one at a time.
+     */
+    private void prefetchFeaturePacks(Collection<MavenArtifact> artifacts) {
+        final Set<ArtifactCoordinate> coordinates = new LinkedHashSet<>();
+        for (MavenArtifact artifact : artifacts) {
+            if (artifact.getVersion() != null && !artifact.getVersion().isEmpty()
+                    && "zip".equalsIgnoreCase(artifact.getExtension())
+                    && !Boolean.parseBoolean(artifact.getMetadata().get(REQUIRE_CHANNEL_FOR_ALL_ARTIFACT))) {
+                coordinates.add(toCoordinate(artifact.getGroupId(), artifact.getArtifactId(), artifact.getExtension(),
+                        artifact.getClassifier(), artifact.getVersion()));
             }
         }
-        // try resolving the new list, handle missing artifacts (e.g. wrong versions)
-        resolveArtifactsWithFallbackVersions(mapperNotRequiringChannels, requests);
+        if (coordinates.size() < 2) {
+            return;
+        }
+        try {
+            channelSession.resolveDirectMavenArtifacts(new ArrayList<>(coordinates));
+        } catch (UnresolvedMavenArtifactException e) {
+            // The artifacts are resolved one at a time, which reports the failure
+            log.debug(String.format("Failed to resolve %d ZIP artifact(s) in bulk: %s", coordinates.size(),
+                    e.getLocalizedMessage()));
+        }
+    }
+
+    private static ArtifactCoordinate toCoordinate(String groupId, String artifactId, String extension, String classifier,
+            String version) {
+        return new ArtifactCoordinate(groupId, artifactId, extension == null ? "" : extension,
+                classifier == null ? "" : classifier, version);
     }
 
     @Override
     public void resolve(MavenArtifact artifact) throws MavenUniverseException {
         try {
             resolveFromChannels(artifact);
+            recordResolution(artifact);
         } catch (ArtifactTransferException ex) {
             throw new MavenUniverseException(ex.getLocalizedMessage(), ex);
         } catch (NoStreamFoundException ex) {
@@ -243,6 +384,7 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
                     // if the artifact can not be resolved directly either, we abort
                     throw new MavenUniverseException(e.getLocalizedMessage(), e);
                 }
+                recordResolution(artifact);
             } else {
                 throw new MavenUniverseException(ex.getLocalizedMessage(), ex);
             }
@@ -263,18 +405,45 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
     }
 
     private boolean fpRequireChannel(MavenArtifact artifact) throws Exception {
-        boolean requireChannel = false;
-        if (artifact.getVersion() != null && artifact.getExtension() != null
-                && artifact.getExtension().equalsIgnoreCase("zip")) {
+        if (artifact.getVersion() == null || artifact.getExtension() == null
+                || !artifact.getExtension().equalsIgnoreCase("zip")) {
+            return false;
+        }
+        final String key = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+                + artifact.getClassifier() + ":" + artifact.getVersion();
+        Boolean requireChannel = fpRequireChannelResults.get(key);
+        if (requireChannel == null) {
             org.wildfly.channel.MavenArtifact mavenArtifact = channelSession.resolveDirectMavenArtifact(artifact.getGroupId(),
                     artifact.getArtifactId(),
                     artifact.getExtension(),
                     artifact.getClassifier(),
                     artifact.getVersion());
-            if (!Provisioning.isFeaturePack(mavenArtifact.getFile().toPath())) {
-                return requireChannel;
-            }
-            try (FileSystem fs = ZipUtils.newFileSystem(mavenArtifact.getFile().toPath())) {
+            final String resolution = getChannelResolution(mavenArtifact.getFile().toPath());
+            requireChannel = "REQUIRED".equals(resolution) || "REQUIRED_FP_ONLY".equals(resolution);
+            fpRequireChannelResults.put(key, requireChannel);
+        }
+        return requireChannel;
+    }
+
+    /**
+     * Reads the channel resolution from the {@code wildfly-channel.properties} of a feature-pack. The result is cached
+     * by the path, size and last modified time of the file, so a feature-pack is only opened once in the JVM.
+     *
+     * @param file the artifact file
+     *
+     * @return the channel resolution or an empty string if the file is not a feature-pack or does not define a
+     *             resolution
+     */
+    private static String getChannelResolution(Path file) throws Exception {
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        final String key = file.toAbsolutePath() + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        String resolution = CHANNEL_RESOLUTIONS.get(key);
+        if (resolution != null) {
+            return resolution;
+        }
+        resolution = "";
+        if (Provisioning.isFeaturePack(file)) {
+            try (FileSystem fs = ZipUtils.newFileSystem(file)) {
                 Path resPath = fs.getPath("resources");
                 final Path wfRes = resPath.resolve("wildfly");
                 final Path channelPropsPath = wfRes.resolve("wildfly-channel.properties");
@@ -283,14 +452,12 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
                     try (BufferedReader reader = Files.newBufferedReader(channelPropsPath)) {
                         props.load(reader);
                     }
-                    String resolution = props.getProperty("resolution");
-                    if (resolution != null) {
-                        requireChannel = "REQUIRED".equals(resolution) || "REQUIRED_FP_ONLY".equals(resolution);
-                    }
+                    resolution = props.getProperty("resolution", "");
                 }
             }
         }
-        return requireChannel;
+        CHANNEL_RESOLUTIONS.put(key, resolution);
+        return resolution;
     }
 
     private void resolveFromChannels(MavenArtifact artifact) throws UnresolvedMavenArtifactException {
@@ -300,9 +467,65 @@ public class ChannelMavenArtifactRepositoryManager implements MavenRepoManager,
         artifact.setPath(result.getFile().toPath());
     }
 
+    /**
+     * Records a resolved artifact. If the versions are locked, the checksum of the artifact is verified.
+     */
+    private void recordResolution(MavenArtifact artifact) throws MavenUniverseException {
+        if (artifact.getPath() == null) {
+            return;
+        }
+        final String key = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+                + artifact.getClassifier() + ":" + artifact.getVersion();
+        if (resolvedArtifacts.putIfAbsent(key, artifact) == null && lock != null) {
+            try {
+                if (!lock.verify(artifact)) {
+                    throw new MavenUniverseException(String.format(
+                            "The checksum of %s does not match the checksum recorded in the channel lock file", key));
+                }
+            } catch (IOException e) {
+                throw new MavenUniverseException(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the channel lock file recording the artifacts resolved from the channels and the versions of the channel
+     * manifests recorded by {@link #done(Path)}.
+     *
+     * @param file        the lock file
+     * @param fingerprint the fingerprint of the channel definitions
+     * @param home        the provisioned server
+     *
+     * @throws IOException if the lock file could not be written
+     */
+    public void writeLock(Path file, String fingerprint, Path home) throws IOException {
+        final Path versionsFile = home.resolve(ProsperoMetadataUtils.METADATA_DIR)
+                .resolve(ProsperoMetadataUtils.CURRENT_VERSION_FILE);
+        final String manifestVersions = Files.exists(versionsFile) ? Files.readString(versionsFile) : null;
+        ChannelLock.write(file, fingerprint, manifestVersions, channelSession.getRecordedChannel().getStreams(),
+                resolvedArtifacts.values());
+    }
+
     public void done(Path home) throws MavenUniverseException, IOException {
         ChannelManifest channelManifest = channelSession.getRecordedChannel();
-        final ManifestVersionRecord currentVersions = ManifestVersionResolver.getCurrentVersions(channelSession);
+        ManifestVersionRecord currentVersions = null;
+        if (lock != null && lock.manifestVersions() != null) {
+            // The channel session resolves from the manifest generated from the lock file, record the versions of the
+            // channel manifests the lock file has been generated from
+            final Path file = Files.createTempFile("manifest_version", ".yaml");
+            try {
+                Files.writeString(file, lock.manifestVersions());
+                currentVersions = ManifestVersionRecord.read(file).orElse(null);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } else if (lock != null) {
+            log.warn("The channel lock file does not record the versions of the channel manifests, delete it to record"
+                    + " the versions in the provisioned server.");
+        }
+        if (currentVersions == null) {
+            currentVersions = ManifestVersionResolver.getCurrentVersions(channelSession);
+        }
         ProsperoMetadataUtils.generate(home, channels, channelManifest, currentVersions);
     }
 
@@ -7,10 +7,11 @@ package org.wildfly.plugin.provision;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.jboss.galleon.universe.maven.MavenUniverseException;
 import org.wildfly.channel.ArtifactCoordinate;
@@ -19,34 +20,35 @@ import org.wildfly.channel.MavenArtifact;
 class MavenArtifactMapper {
 
     private final Collection<org.jboss.galleon.universe.maven.MavenArtifact> galleonArtifacts;
-    private final HashMap<String, List<org.jboss.galleon.universe.maven.MavenArtifact>> artifactMap = new HashMap<>();
+    private final Map<CoordinateKey, List<org.jboss.galleon.universe.maven.MavenArtifact>> artifactMap;
+    private List<ArtifactCoordinate> channelArtifacts;
 
     public MavenArtifactMapper(Collection<org.jboss.galleon.universe.maven.MavenArtifact> galleonArtifacts) {
         this.galleonArtifacts = galleonArtifacts;
+        this.artifactMap = new HashMap<>(Math.max(16, (int) (galleonArtifacts.size() / 0.75f) + 1));
 
         for (org.jboss.galleon.universe.maven.MavenArtifact a : galleonArtifacts) {
-            final String key = coordString(a.getGroupId(), a.getArtifactId(), a.getExtension(), a.getClassifier());
-            if (!artifactMap.containsKey(key)) {
-                artifactMap.put(key, new ArrayList<>());
-            }
-
-            artifactMap.get(key).add(a);
+            artifactMap.computeIfAbsent(new CoordinateKey(a.getGroupId(), a.getArtifactId(), a.getExtension(),
+                    a.getClassifier()), (key) -> new ArrayList<>(1)).add(a);
         }
     }
 
-    private String coordString(String groupId, String artifactId, String extension, String classifier) {
-        return String.format("%s:%s:%s:%s", groupId, artifactId, wrapNull(extension), wrapNull(classifier));
-    }
-
-    private String wrapNull(String value) {
-        return value == null ? "" : value;
-    }
-
+    /**
+     * Returns the coordinates of the artifacts to resolve. The coordinates are computed once, with the versions of the
+     * artifacts when this method is first invoked.
+     *
+     * @return an unmodifiable list of the coordinates
+     */
     public List<ArtifactCoordinate> toChannelArtifacts() {
-        return galleonArtifacts.stream()
-                .map(a -> new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(), a.getExtension(), a.getClassifier(),
-                        a.getVersion() == null ? "" : a.getVersion()))
-                .collect(Collectors.toList());
+        if (channelArtifacts == null) {
+            final List<ArtifactCoordinate> result = new ArrayList<>(galleonArtifacts.size());
+            for (org.jboss.galleon.universe.maven.MavenArtifact a : galleonArtifacts) {
+                result.add(new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(), a.getExtension(), a.getClassifier(),
+                        a.getVersion() == null ? "" : a.getVersion()));
+            }
+            channelArtifacts = Collections.unmodifiableList(result);
+        }
+        return channelArtifacts;
     }
 
     public static boolean isSameArtifact(MavenArtifact channelArtifact,
@@ -57,19 +59,32 @@ class MavenArtifactMapper {
                 channelArtifact.getExtension().equals(galleonArtifact.getExtension());
     }
 
-    public Collection<org.jboss.galleon.universe.maven.MavenArtifact> applyResolution(List<MavenArtifact> channelArtifacts)
+    /**
+     * Applies the resolved artifacts to the matching Galleon artifacts. The resolved artifacts can be a subset of the
+     * artifacts, e.g. the result of one of several bulk resolutions.
+     *
+     * @param channelArtifacts the resolved artifacts
+     *
+     * @return the Galleon artifacts which have been resolved by this invocation
+     *
+     * @throws MavenUniverseException if a resolved artifact is unknown
+     */
+    public List<org.jboss.galleon.universe.maven.MavenArtifact> applyResolution(List<MavenArtifact> channelArtifacts)
             throws MavenUniverseException {
+        final List<org.jboss.galleon.universe.maven.MavenArtifact> result = new ArrayList<>(channelArtifacts.size());
         for (MavenArtifact channelArtifact : channelArtifacts) {
-            String key = coordString(channelArtifact.getGroupId(), channelArtifact.getArtifactId(),
+            final CoordinateKey key = new CoordinateKey(channelArtifact.getGroupId(), channelArtifact.getArtifactId(),
                     channelArtifact.getExtension(), channelArtifact.getClassifier());
-            if (!artifactMap.containsKey(key)) {
+            final List<org.jboss.galleon.universe.maven.MavenArtifact> artifacts = artifactMap.get(key);
+            if (artifacts == null) {
                 throw new MavenUniverseException("Unknown artifact " + key);
             }
-            for (org.jboss.galleon.universe.maven.MavenArtifact a : artifactMap.get(key)) {
+            for (org.jboss.galleon.universe.maven.MavenArtifact a : artifacts) {
                 resolve(a, channelArtifact);
+                result.add(a);
             }
         }
-        return galleonArtifacts;
+        return result;
     }
 
     /**
@@ -80,11 +95,13 @@ class MavenArtifactMapper {
      * @throws IllegalArgumentException if the artifact coordinates cannot be found
      */
     public List<org.jboss.galleon.universe.maven.MavenArtifact> get(ArtifactCoordinate coord) {
-        String key = coordString(coord.getGroupId(), coord.getArtifactId(), coord.getExtension(), coord.getClassifier());
-        if (!artifactMap.containsKey(key)) {
+        final CoordinateKey key = new CoordinateKey(coord.getGroupId(), coord.getArtifactId(), coord.getExtension(),
+                coord.getClassifier());
+        final List<org.jboss.galleon.universe.maven.MavenArtifact> artifacts = artifactMap.get(key);
+        if (artifacts == null) {
             throw new IllegalArgumentException("Artifact " + key + " not found.");
         }
-        return artifactMap.get(key);
+        return artifacts;
     }
 
     public static void resolve(org.jboss.galleon.universe.maven.MavenArtifact artifact, MavenArtifact resolvedArtifact) {
@@ -96,4 +113,20 @@ class MavenArtifactMapper {
         artifact.setVersion(resolvedArtifact.getVersion());
         artifact.setPath(resolvedArtifact.getFile().toPath());
     }
+
+    /**
+     * The groupId, artifactId, extension and classifier of an artifact. A {@code null} extension or classifier is the
+     * same as an empty one.
+     */
+    record CoordinateKey(String groupId, String artifactId, String extension, String classifier) {
+        CoordinateKey {
+            extension = extension == null ? "" : extension;
+            classifier = classifier == null ? "" : classifier;
+        }
+
+        @Override
+        public String toString() {
+            return groupId + ":" + artifactId + ":" + extension + ":" + classifier;
+        }
+    }
 }
@@ -503,14 +503,17 @@ public class PackageServerMojo extends AbstractProvisionServerMojo {
             }
 
             if (!extraServerContentDirs.isEmpty()) {
+                final long start = System.nanoTime();
                 getLog().info("Copying extra content to server");
                 copyExtraContent(jbossHome);
+                recordPhase("extra-content", start);
             }
         } catch (IOException ex) {
             throw new MojoExecutionException(ex.getLocalizedMessage(), ex);
         }
 
         if (!skipDeployment) {
+            final long start = System.nanoTime();
             Path primaryDeployment = getDeploymentContent();
             if (primaryDeployment != null) {
                 deploy(primaryDeployment, getDeploymentTargetName());
@@ -524,11 +527,13 @@ public class PackageServerMojo extends AbstractProvisionServerMojo {
             } catch (Exception ex) {
                 throw new MojoExecutionException(ex.getLocalizedMessage(), ex);
             }
+            recordPhase("deployments", start);
         }
 
         // CLI execution
         try {
             if (!packagingScripts.isEmpty()) {
+                final long start = System.nanoTime();
                 getLog().info("Executing CLI commands and scripts");
                 for (CliSession session : packagingScripts) {
                     List<File> wrappedScripts = wrapOfflineScripts(session.getScripts());
@@ -552,11 +557,14 @@ public class PackageServerMojo extends AbstractProvisionServerMojo {
                         }
                     }
                 }
+                recordPhase("offline-cli", start);
             }
 
             GalleonUtils.cleanupServer(jbossHome);
             if (bootableJar) {
+                final long start = System.nanoTime();
                 packageBootableJar(jbossHome, config);
+                recordPhase("bootable-jar", start);
             }
         } catch (Exception ex) {
             throw new MojoExecutionException(ex.getLocalizedMessage(), ex);
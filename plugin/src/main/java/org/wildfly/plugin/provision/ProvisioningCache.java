@@ -0,0 +1,335 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ * A cache of provisioned servers. Each server is stored in a directory named by a key computed from all inputs of the
+ * provisioning, so a server can be reused by any build provisioning the same server.
+ * <p>
+ * Servers are stored by copying them into a temporary directory which is then renamed, so concurrent builds either see
+ * a complete server or no server at all. Entries are never modified once stored. The cache directory can be deleted at
+ * any time. Storing and copying a server is best effort, if either fails the server is provisioned.
+ * </p>
+ * <p>
+ * The cache keeps the {@value #MAX_ENTRIES} most recently used servers. When a server is stored, the least recently
+ * used entries exceeding this limit are deleted, as are temporary directories left behind by interrupted builds.
+ * </p>
+ * <p>
+ * Optionally files are hard linked rather than copied. Only the files which are modified after the server has been
+ * provisioned, e.g. the configuration or the data directory, are copied. Files are hard linked only if the cache and the
+ * server are on the same file system, otherwise the files are copied.
+ * </p>
+ */
+class ProvisioningCache {
+    // Marks a complete entry, written last. The last modified time is the time the entry was last used.
+    private static final String COMPLETE_MARKER = ".wildfly-provisioning-cache";
+    private static final String TMP_SUFFIX = ".tmp";
+    // The maximum number of cached servers
+    static final int MAX_ENTRIES = 10;
+    // The age after which a temporary directory is considered left behind by an interrupted build
+    private static final Duration TMP_MAX_AGE = Duration.ofDays(1);
+    // The paths which are modified after provisioning, e.g. by CLI scripts, and must not be shared with the cache
+    private static final List<Path> MUTABLE_PATHS = List.of(
+            Path.of(".galleon"),
+            Path.of(".installation"),
+            Path.of("appclient", "configuration"),
+            Path.of("bin"),
+            Path.of("domain", "configuration"),
+            Path.of("domain", "data"),
+            Path.of("domain", "log"),
+            Path.of("domain", "tmp"),
+            Path.of("standalone", "configuration"),
+            Path.of("standalone", "data"),
+            Path.of("standalone", "deployments"),
+            Path.of("standalone", "log"),
+            Path.of("standalone", "tmp"));
+
+    private final Path directory;
+    private final boolean hardLinks;
+    private final Log log;
+    private boolean linksSupported = true;
+
+    private ProvisioningCache(final Path directory, final boolean hardLinks, final Log log) {
+        this.directory = directory;
+        this.hardLinks = hardLinks;
+        this.log = log;
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param directory the directory of the cache
+     * @param hardLinks {@code true} if files which are not modified after provisioning should be hard linked
+     * @param log       the log
+     *
+     * @return the cache
+     */
+    static ProvisioningCache of(final Path directory, final boolean hardLinks, final Log log) {
+        return new ProvisioningCache(directory, hardLinks, log);
+    }
+
+    /**
+     * Creates a new key builder.
+     *
+     * @return the key builder
+     */
+    static KeyBuilder keyBuilder() {
+        return new KeyBuilder();
+    }
+
+    /**
+     * Copies, or links, the cached server into the target directory. If copying the server fails, e.g. because the
+     * entry was pruned concurrently, the partially copied server is deleted and a warning is logged.
+     *
+     * @param key    the key of the server
+     * @param target the directory to copy the server to, which must not exist
+     *
+     * @return {@code true} if the server was cached and copied, otherwise {@code false}
+     */
+    boolean materialize(final String key, final Path target) {
+        final Path entry = directory.resolve(key);
+        final Path marker = entry.resolve(COMPLETE_MARKER);
+        if (!Files.isRegularFile(marker)) {
+            log.debug(String.format("No provisioned server cached for key %s", key));
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(marker, FileTime.from(Instant.now()));
+            final int linked = transfer(entry, target);
+            Files.deleteIfExists(target.resolve(COMPLETE_MARKER));
+            log.debug(String.format("Materialized cache entry %s in %s, %d file(s) linked", entry, target, linked));
+            return true;
+        } catch (IOException e) {
+            log.warn(String.format("Failed to copy the cached server %s, provisioning the server: %s", entry, e));
+            IoUtils.recursiveDelete(target);
+            return false;
+        }
+    }
+
+    /**
+     * Stores a copy of the provisioned server. If a server has already been stored for the key, the cache is not
+     * modified. An entry without the marker of a complete entry is replaced. If storing the server fails a warning is
+     * logged, the provisioned server is not affected.
+     * <p>
+     * After storing the server, the cache is {@linkplain #prune() pruned}.
+     * </p>
+     *
+     * @param key    the key of the server
+     * @param source the provisioned server
+     */
+    void store(final String key, final Path source) {
+        final Path entry = directory.resolve(key);
+        if (Files.isRegularFile(entry.resolve(COMPLETE_MARKER))) {
+            return;
+        }
+        final Path tmp = directory.resolve(key + "-" + UUID.randomUUID() + TMP_SUFFIX);
+        try {
+            if (Files.exists(entry)) {
+                // An incomplete entry, e.g. from a non-atomic move which was interrupted
+                log.debug(String.format("Replacing the incomplete cache entry %s", entry));
+                delete(entry);
+            }
+            Files.createDirectories(directory);
+            transfer(source, tmp);
+            Files.writeString(tmp.resolve(COMPLETE_MARKER), key, StandardCharsets.UTF_8);
+            try {
+                try {
+                    Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, entry);
+                }
+                log.debug(String.format("Stored provisioned server %s in cache entry %s", source, entry));
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // Another build stored the same server concurrently
+                log.debug(String.format("Provisioned server already stored in cache entry %s", entry));
+            }
+        } catch (IOException e) {
+            log.warn(String.format("Failed to store the provisioned server in the provisioning cache %s: %s", directory, e));
+            return;
+        } finally {
+            if (Files.exists(tmp)) {
+                IoUtils.recursiveDelete(tmp);
+            }
+        }
+        prune();
+    }
+
+    /**
+     * Deletes the least recently used entries exceeding {@value #MAX_ENTRIES} entries and the temporary directories
+     * older than a day. Entries are deleted by renaming them first, so concurrent builds never see a partially deleted
+     * entry as complete. Failures are logged and ignored.
+     */
+    void prune() {
+        final List<Path> entries = new ArrayList<>();
+        final Map<Path, FileTime> lastUsed = new HashMap<>();
+        final FileTime tmpExpiry = FileTime.from(Instant.now().minus(TMP_MAX_AGE));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (!Files.isDirectory(path)) {
+                    continue;
+                }
+                if (path.getFileName().toString().endsWith(TMP_SUFFIX)) {
+                    if (Files.getLastModifiedTime(path).compareTo(tmpExpiry) < 0) {
+                        delete(path);
+                    }
+                } else if (Files.isRegularFile(path.resolve(COMPLETE_MARKER))) {
+                    entries.add(path);
+                    lastUsed.put(path, Files.getLastModifiedTime(path.resolve(COMPLETE_MARKER)));
+                }
+            }
+            if (entries.size() > MAX_ENTRIES) {
+                entries.sort(Comparator.comparing(lastUsed::get, Comparator.reverseOrder()));
+                for (Path entry : entries.subList(MAX_ENTRIES, entries.size())) {
+                    log.debug(String.format("Deleting the least recently used cache entry %s", entry));
+                    delete(entry);
+                }
+            }
+        } catch (NoSuchFileException ignore) {
+            // The cache directory or an entry has been deleted concurrently
+        } catch (IOException e) {
+            log.warn(String.format("Failed to prune the provisioning cache %s: %s", directory, e));
+        }
+    }
+
+    private void delete(final Path path) throws IOException {
+        final Path tmp = directory.resolve(path.getFileName() + "-" + UUID.randomUUID() + TMP_SUFFIX);
+        try {
+            Files.move(path, tmp, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Deleted concurrently
+            return;
+        }
+        IoUtils.recursiveDelete(tmp);
+    }
+
+    /**
+     * Copies the source directory to the target directory, hard linking the files which are not mutable if enabled.
+     *
+     * @return the number of files linked
+     */
+    private int transfer(final Path source, final Path target) throws IOException {
+        final int[] linked = {0};
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path relative = source.relativize(file);
+                final Path targetFile = target.resolve(relative.toString());
+                if (hardLinks && linksSupported && attrs.isRegularFile() && !isMutable(relative)) {
+                    try {
+                        Files.createLink(targetFile, file);
+                        linked[0]++;
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // For example the directories are on different file systems
+                        log.debug(String.format("Failed to link %s, copying the files: %s", file, e));
+                        linksSupported = false;
+                    }
+                }
+                Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return linked[0];
+    }
+
+    private static boolean isMutable(final Path relative) {
+        for (Path path : MUTABLE_PATHS) {
+            if (relative.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the key of a provisioned server from the inputs of the provisioning.
+     */
+    static class KeyBuilder {
+        private final MessageDigest digest;
+
+        private KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 is a required algorithm of the JDK
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Adds a named input.
+         *
+         * @param name  the name of the input
+         * @param value the value of the input, can be {@code null}
+         *
+         * @return this builder
+         */
+        KeyBuilder add(final String name, final String value) {
+            return add(name, value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Adds a named input.
+         *
+         * @param name  the name of the input
+         * @param value the value of the input
+         *
+         * @return this builder
+         */
+        KeyBuilder add(final String name, final byte[] value) {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(value.length).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(value);
+            return this;
+        }
+
+        /**
+         * Computes the key.
+         *
+         * @return the key
+         */
+        String build() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
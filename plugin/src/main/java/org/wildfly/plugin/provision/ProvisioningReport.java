@@ -0,0 +1,459 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.jboss.galleon.api.Provisioning;
+import org.jboss.galleon.progresstracking.ProgressCallback;
+import org.jboss.galleon.progresstracking.ProgressTracker;
+import org.wildfly.plugin.core.MavenJBossLogger;
+import org.wildfly.plugin.tools.PluginProgressTracker;
+
+/**
+ * A report of the time spent in each phase of a provisioning, and of the artifacts downloaded. The report is written
+ * as JSON, e.g.:
+ *
+ * <pre>
+ * {
+ *   "project": "org.example:app:war:1.0",
+ *   "goal": "package",
+ *   "started": "2024-01-01T10:00:00Z",
+ *   "success": true,
+ *   "cached": false,
+ *   "totalTimeMs": 42000,
+ *   "phases": {
+ *     "repository-enrichment": 5,
+ *     "channel-resolution": 800,
+ *     "galleon-layout": 15000
+ *   },
+ *   "downloads": {
+ *     "artifacts": 120,
+ *     "metadata": 40,
+ *     "bytes": 104857600,
+ *     "artifactsResolved": 3000,
+ *     "cacheHits": 2880
+ *   }
+ * }
+ * </pre>
+ *
+ * The phases are listed in the order they completed. A phase executed several times reports the total time. The cache
+ * hits are the artifacts resolved from the local repository.
+ */
+class ProvisioningReport {
+    static final String FILE_NAME = "wildfly-provisioning-report.json";
+
+    // The Galleon progress tracker ids and the name of the phase
+    private static final Map<String, String> GALLEON_PHASES = Map.of(
+            "LAYOUT_BUILD", "galleon-layout",
+            "PACKAGES", "galleon-packages",
+            "CONFIGS", "galleon-configs",
+            "JBMODULES", "galleon-jboss-modules",
+            "JBEXTRACONFIGS", "galleon-extra-configs");
+
+    private final String project;
+    private final String goal;
+    private final Instant started = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final AtomicLong artifactsDownloaded = new AtomicLong();
+    private final AtomicLong metadataDownloaded = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong artifactsResolved = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private ProvisioningReport(final String project, final String goal) {
+        this.project = project;
+        this.goal = goal;
+    }
+
+    /**
+     * Creates a new report, the total time is measured from now.
+     *
+     * @param project the id of the project
+     * @param goal    the goal provisioning the server
+     *
+     * @return the report
+     */
+    static ProvisioningReport of(final String project, final String goal) {
+        return new ProvisioningReport(project, goal);
+    }
+
+    /**
+     * Records the time spent in a phase.
+     *
+     * @param name  the name of the phase
+     * @param start the start of the phase, as returned by {@link System#nanoTime()}
+     */
+    synchronized void phase(final String name, final long start) {
+        phases.merge(name, (System.nanoTime() - start) / 1_000_000L, Long::sum);
+    }
+
+    /**
+     * Creates a session recording the downloads and resolutions of artifacts in this report. The listeners of the
+     * session are still notified.
+     *
+     * @param session the session to copy
+     *
+     * @return the new session
+     */
+    RepositorySystemSession track(final RepositorySystemSession session) {
+        final DefaultRepositorySystemSession result = new DefaultRepositorySystemSession(session);
+        final DownloadListener listener = new DownloadListener(session.getRepositoryListener(),
+                session.getTransferListener());
+        result.setRepositoryListener(listener);
+        result.setTransferListener(listener);
+        return result;
+    }
+
+    /**
+     * Initializes the progress trackers of the provisioning and records the time spent in the phases of Galleon. The
+     * progress is still logged by the trackers.
+     *
+     * @param provisioning the provisioning
+     * @param log          the logger of the progress trackers
+     */
+    void trackGalleonPhases(final Provisioning provisioning, final MavenJBossLogger log) {
+        // Intercept the callbacks registered by the plugin trackers so each one is wrapped in a phase callback
+        final Provisioning tracked = (Provisioning) Proxy.newProxyInstance(Provisioning.class.getClassLoader(),
+                new Class<?>[] { Provisioning.class }, (proxy, method, args) -> {
+                    if ("setProgressCallback".equals(method.getName()) && args != null && args.length == 2
+                            && args[1] instanceof ProgressCallback) {
+                        final String name = GALLEON_PHASES.get((String) args[0]);
+                        if (name != null) {
+                            args[1] = new PhaseCallback<>(name, (ProgressCallback<?>) args[1]);
+                        }
+                    }
+                    try {
+                        return method.invoke(provisioning, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        PluginProgressTracker.initTrackers(tracked, log);
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file    the file to write the report to
+     * @param success {@code true} if the goal succeeded
+     * @param cached  {@code true} if the server was copied from the provisioning cache
+     *
+     * @throws IOException if the report could not be written
+     */
+    synchronized void write(final Path file, final boolean success, final boolean cached) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"project\": ").append(quote(project)).append(",\n");
+        json.append("  \"goal\": ").append(quote(goal)).append(",\n");
+        json.append("  \"started\": ").append(quote(started.toString())).append(",\n");
+        json.append("  \"success\": ").append(success).append(",\n");
+        json.append("  \"cached\": ").append(cached).append(",\n");
+        json.append("  \"totalTimeMs\": ").append((System.nanoTime() - startNanos) / 1_000_000L).append(",\n");
+        json.append("  \"phases\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            json.append("    ").append(quote(phase.getKey())).append(": ").append(phase.getValue());
+            first = false;
+        }
+        json.append(first ? "},\n" : "\n  },\n");
+        json.append("  \"downloads\": {\n");
+        json.append("    \"artifacts\": ").append(artifactsDownloaded.get()).append(",\n");
+        json.append("    \"metadata\": ").append(metadataDownloaded.get()).append(",\n");
+        json.append("    \"bytes\": ").append(bytesDownloaded.get()).append(",\n");
+        json.append("    \"artifactsResolved\": ").append(artifactsResolved.get()).append(",\n");
+        json.append("    \"cacheHits\": ").append(cacheHits.get()).append('\n');
+        json.append("  }\n");
+        json.append("}\n");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+
+    private static String quote(final String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Records the time spent in a phase and delegates to the progress tracker of the phase.
+     */
+    private class PhaseCallback<T> implements ProgressCallback<T> {
+        private final String name;
+        private final ProgressCallback<T> delegate;
+        private long start;
+
+        PhaseCallback(final String name, final ProgressCallback<T> delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long getProgressPulsePct() {
+            return delegate.getProgressPulsePct();
+        }
+
+        @Override
+        public long getMinPulseIntervalMs() {
+            return delegate.getMinPulseIntervalMs();
+        }
+
+        @Override
+        public long getMaxPulseIntervalMs() {
+            return delegate.getMaxPulseIntervalMs();
+        }
+
+        @Override
+        public void starting(final ProgressTracker<T> tracker) {
+            start = System.nanoTime();
+            delegate.starting(tracker);
+        }
+
+        @Override
+        public void processing(final ProgressTracker<T> tracker) {
+            delegate.processing(tracker);
+        }
+
+        @Override
+        public void processed(final ProgressTracker<T> tracker) {
+            delegate.processed(tracker);
+        }
+
+        @Override
+        public void pulse(final ProgressTracker<T> tracker) {
+            delegate.pulse(tracker);
+        }
+
+        @Override
+        public void complete(final ProgressTracker<T> tracker) {
+            delegate.complete(tracker);
+            phase(name, start);
+        }
+    }
+
+    /**
+     * Counts the downloads and resolutions, and notifies the listeners of the original session. The events are
+     * received from the threads of the resolver.
+     */
+    private class DownloadListener implements RepositoryListener, TransferListener {
+        private final RepositoryListener repositoryListener;
+        private final TransferListener transferListener;
+
+        DownloadListener(final RepositoryListener repositoryListener, final TransferListener transferListener) {
+            this.repositoryListener = repositoryListener;
+            this.transferListener = transferListener;
+        }
+
+        @Override
+        public void artifactDescriptorInvalid(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactDescriptorInvalid(event);
+            }
+        }
+
+        @Override
+        public void artifactDescriptorMissing(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactDescriptorMissing(event);
+            }
+        }
+
+        @Override
+        public void metadataInvalid(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataInvalid(event);
+            }
+        }
+
+        @Override
+        public void artifactResolving(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactResolving(event);
+            }
+        }
+
+        @Override
+        public void artifactResolved(final RepositoryEvent event) {
+            if (event.getException() == null) {
+                artifactsResolved.incrementAndGet();
+                // Artifacts resolved from the local repository were not downloaded
+                if (event.getRepository() instanceof LocalRepository) {
+                    cacheHits.incrementAndGet();
+                }
+            }
+            if (repositoryListener != null) {
+                repositoryListener.artifactResolved(event);
+            }
+        }
+
+        @Override
+        public void metadataResolving(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataResolving(event);
+            }
+        }
+
+        @Override
+        public void metadataResolved(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataResolved(event);
+            }
+        }
+
+        @Override
+        public void artifactDownloading(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactDownloading(event);
+            }
+        }
+
+        @Override
+        public void artifactDownloaded(final RepositoryEvent event) {
+            if (event.getException() == null) {
+                artifactsDownloaded.incrementAndGet();
+            }
+            if (repositoryListener != null) {
+                repositoryListener.artifactDownloaded(event);
+            }
+        }
+
+        @Override
+        public void metadataDownloading(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataDownloading(event);
+            }
+        }
+
+        @Override
+        public void metadataDownloaded(final RepositoryEvent event) {
+            if (event.getException() == null) {
+                metadataDownloaded.incrementAndGet();
+            }
+            if (repositoryListener != null) {
+                repositoryListener.metadataDownloaded(event);
+            }
+        }
+
+        @Override
+        public void artifactInstalling(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactInstalling(event);
+            }
+        }
+
+        @Override
+        public void artifactInstalled(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactInstalled(event);
+            }
+        }
+
+        @Override
+        public void metadataInstalling(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataInstalling(event);
+            }
+        }
+
+        @Override
+        public void metadataInstalled(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataInstalled(event);
+            }
+        }
+
+        @Override
+        public void artifactDeploying(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactDeploying(event);
+            }
+        }
+
+        @Override
+        public void artifactDeployed(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.artifactDeployed(event);
+            }
+        }
+
+        @Override
+        public void metadataDeploying(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataDeploying(event);
+            }
+        }
+
+        @Override
+        public void metadataDeployed(final RepositoryEvent event) {
+            if (repositoryListener != null) {
+                repositoryListener.metadataDeployed(event);
+            }
+        }
+
+        @Override
+        public void transferInitiated(final TransferEvent event) throws TransferCancelledException {
+            if (transferListener != null) {
+                transferListener.transferInitiated(event);
+            }
+        }
+
+        @Override
+        public void transferStarted(final TransferEvent event) throws TransferCancelledException {
+            if (transferListener != null) {
+                transferListener.transferStarted(event);
+            }
+        }
+
+        @Override
+        public void transferProgressed(final TransferEvent event) throws TransferCancelledException {
+            if (transferListener != null) {
+                transferListener.transferProgressed(event);
+            }
+        }
+
+        @Override
+        public void transferCorrupted(final TransferEvent event) throws TransferCancelledException {
+            if (transferListener != null) {
+                transferListener.transferCorrupted(event);
+            }
+        }
+
+        @Override
+        public void transferSucceeded(final TransferEvent event) {
+            if (event.getRequestType() == TransferEvent.RequestType.GET) {
+                bytesDownloaded.addAndGet(event.getTransferredBytes());
+            }
+            if (transferListener != null) {
+                transferListener.transferSucceeded(event);
+            }
+        }
+
+        @Override
+        public void transferFailed(final TransferEvent event) {
+            if (transferListener != null) {
+                transferListener.transferFailed(event);
+            }
+        }
+    }
+}
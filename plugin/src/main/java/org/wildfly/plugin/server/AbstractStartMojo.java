@@ -309,4 +309,13 @@ public abstract class AbstractStartMojo extends AbstractServerConnection {
     protected boolean isDebugEnabled() {
         return debug;
     }
+
+    /**
+     * The timeout, in seconds, to wait for the server to start.
+     *
+     * @return the startup timeout in seconds
+     */
+    protected long getStartupTimeout() {
+        return startupTimeout;
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ClassFileConstantsTestCase {
+
+    @Test
+    public void testRead() throws Exception {
+        final ClassFileConstants constants = ClassFileConstants.read(readClass(Sample.class));
+        Assertions.assertEquals("org/wildfly/plugin/dev/ClassFileConstantsTestCase$Sample", constants.className());
+        Assertions.assertEquals("ClassFileConstantsTestCase.java", constants.sourceFile());
+        Assertions.assertTrue(constants.strings().contains("sample-literal"));
+        final Set<String> referenced = constants.referencedClasses();
+        Assertions.assertTrue(referenced.contains("java/util/ArrayList"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/lang/Runnable"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/lang/StringBuilder"), referenced.toString());
+        Assertions.assertFalse(referenced.contains(constants.className()));
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        final ClassFileConstants first = ClassFileConstants.read(readClass(Sample.class));
+        final ClassFileConstants second = ClassFileConstants.read(readClass(Sample.class));
+        Assertions.assertEquals(first.strings(), second.strings());
+        Assertions.assertNotEquals(first.strings(), ClassFileConstants.read(readClass(Other.class)).strings());
+    }
+
+    @Test
+    public void testDescriptorReferences() throws Exception {
+        final Set<String> referenced = ClassFileConstants.read(readClass(Descriptors.class)).referencedClasses();
+        // Types only used in descriptors and generic signatures
+        Assertions.assertTrue(referenced.contains("java/util/concurrent/Callable"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/time/Duration"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/util/function/Supplier"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/util/UUID"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/util/Map$Entry"), referenced.toString());
+        Assertions.assertTrue(referenced.contains("java/util/Locale"), referenced.toString());
+        // Array types are replaced by their element types
+        Assertions.assertTrue(referenced.contains("java/util/Currency"), referenced.toString());
+        Assertions.assertTrue(referenced.stream().noneMatch(name -> name.startsWith("[")), referenced.toString());
+        // Type variables are not classes
+        Assertions.assertFalse(referenced.contains("T"), referenced.toString());
+    }
+
+    @Test
+    public void testApi() throws Exception {
+        final Set<String> api = ClassFileConstants.read(readClass(Api.class)).api();
+        // Only the method bodies and the private members differ
+        Assertions.assertEquals(api, ClassFileConstants.read(readClass(SameApi.class)).api());
+        Assertions.assertNotEquals(api, ClassFileConstants.read(readClass(OtherApi.class)).api());
+        Assertions.assertTrue(api.stream().anyMatch(value -> value.contains("value()I")), api.toString());
+        Assertions.assertTrue(api.stream().noneMatch(value -> value.contains("hidden")), api.toString());
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(IOException.class, () -> ClassFileConstants.read(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+        Assertions.assertThrows(IOException.class, () -> ClassFileConstants.read(new byte[0]));
+    }
+
+    static byte[] readClass(final Class<?> type) throws IOException {
+        try (InputStream in = type.getResourceAsStream(type.getName().substring(type.getName().lastIndexOf('.') + 1)
+                + ".class")) {
+            Assertions.assertNotNull(in, "Class file of " + type.getName() + " not found");
+            return in.readAllBytes();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Sample extends ArrayList<String> implements Runnable {
+        @Override
+        public void run() {
+            add(new StringBuilder("sample-literal").append(size()).toString());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Other {
+        private final String value = "other-literal";
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class Descriptors<T extends Comparable<T>> {
+        private Callable<Duration> field;
+
+        abstract void accept(Supplier<UUID[]> supplier, Map.Entry<String, T> entry);
+
+        String language(final Locale locale) {
+            return locale.getLanguage();
+        }
+
+        int count(final Currency[] currencies) {
+            return currencies.length;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Api {
+        public int value() {
+            return 1;
+        }
+
+        private void hidden() {
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class SameApi {
+        public int value() {
+            return 2;
+        }
+
+        private void hidden(final String value) {
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class OtherApi {
+        public int value() {
+            return 1;
+        }
+
+        public void other() {
+        }
+    }
+}
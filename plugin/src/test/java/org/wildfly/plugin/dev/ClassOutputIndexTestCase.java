@@ -0,0 +1,83 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ClassOutputIndexTestCase {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testUpdate() throws Exception {
+        final Path a = write("org/example/A.class", "a");
+        write("org/example/B.class", "b");
+        write("app.properties", "key=value");
+        final ClassOutputIndex index = ClassOutputIndex.of(dir);
+
+        ClassOutputIndex.Changes changes = index.update();
+        Assertions.assertEquals(Set.of("org/example/A.class", "org/example/B.class", "app.properties"), changes.added());
+        Assertions.assertEquals(Set.of("org.example.A", "org.example.B"), changes.changedClasses());
+        Assertions.assertTrue(index.update().isEmpty());
+
+        // Rewriting a file with the same content is not a change
+        write("org/example/A.class", "a");
+        touch(a);
+        Assertions.assertTrue(index.update().isEmpty());
+
+        write("org/example/A.class", "c");
+        touch(a);
+        changes = index.update();
+        Assertions.assertEquals(Set.of("org/example/A.class"), changes.modified());
+        Assertions.assertTrue(changes.isModifiedClassesOnly());
+        Assertions.assertEquals(Map.of("org.example.A", a), changes.modifiedClasses());
+
+        Files.delete(dir.resolve("org/example/B.class"));
+        write("app.properties", "key=other");
+        changes = index.update();
+        Assertions.assertEquals(Set.of("org/example/B.class"), changes.removed());
+        Assertions.assertEquals(Set.of("app.properties"), changes.modified());
+        Assertions.assertFalse(changes.isModifiedClassesOnly());
+        Assertions.assertEquals(Set.of("org.example.B"), changes.changedClasses());
+    }
+
+    @Test
+    public void testUncommittedChanges() throws Exception {
+        final Path a = write("org/example/A.class", "a");
+        final ClassOutputIndex index = ClassOutputIndex.of(dir);
+        index.update();
+
+        write("org/example/A.class", "b");
+        touch(a);
+        final ClassOutputIndex.Changes changes = index.changes();
+        Assertions.assertEquals(Set.of("org/example/A.class"), changes.modified());
+        // The changes are reported again until they are committed, e.g. after the deployment failed
+        Assertions.assertEquals(Set.of("org/example/A.class"), index.changes().modified());
+
+        index.commit(changes);
+        Assertions.assertTrue(index.changes().isEmpty());
+    }
+
+    private Path write(final String name, final String content) throws IOException {
+        final Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static void touch(final Path file) throws IOException {
+        // Ensure the change is detected on file systems with a low time resolution
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000L));
+    }
+}
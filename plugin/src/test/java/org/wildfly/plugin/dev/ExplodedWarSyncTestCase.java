@@ -0,0 +1,127 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExplodedWarSyncTestCase {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testSyncFile() throws Exception {
+        final Path webapp = createDirectory("src", "main", "webapp");
+        final Path war = dir.resolve("test.war");
+        final ExplodedWarSync sync = ExplodedWarSync.of(war).map(webapp, "");
+        final Path file = write(webapp.resolve("css").resolve("site.css"), "body {}");
+
+        Assertions.assertTrue(sync.isMapped(file));
+        Assertions.assertFalse(sync.isMapped(dir.resolve("other.css")));
+        Assertions.assertNull(sync.sync(dir.resolve("other.css")));
+
+        final Path target = sync.sync(file);
+        Assertions.assertEquals(war.resolve("css").resolve("site.css"), target);
+        Assertions.assertEquals("body {}", Files.readString(target));
+        Assertions.assertEquals(Files.getLastModifiedTime(file).toMillis(), Files.getLastModifiedTime(target).toMillis());
+        try (var files = Files.list(target.getParent())) {
+            Assertions.assertEquals(List.of(target), files.toList());
+        }
+
+        write(file, "body { margin: 0; }");
+        sync.sync(file);
+        Assertions.assertEquals("body { margin: 0; }", Files.readString(target));
+
+        Files.delete(file);
+        Assertions.assertEquals(target, sync.sync(file));
+        Assertions.assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void testTemporaryFileName() throws Exception {
+        final Path webapp = createDirectory("webapp");
+        final Path war = dir.resolve("test.war");
+        final ExplodedWarSync sync = ExplodedWarSync.of(war).map(webapp, "");
+        final Path tmp = write(webapp.resolve("site.css.tmp"), "tmp");
+        final Path file = write(webapp.resolve("site.css"), "body {}");
+
+        sync.sync(tmp);
+        sync.sync(file);
+        // Copying a file does not replace a file of the deployment with the name of a temporary file
+        Assertions.assertEquals("tmp", Files.readString(war.resolve("site.css.tmp")));
+        Assertions.assertEquals("body {}", Files.readString(war.resolve("site.css")));
+    }
+
+    @Test
+    public void testSyncDirectory() throws Exception {
+        final Path webapp = createDirectory("webapp");
+        final Path war = dir.resolve("test.war");
+        final ExplodedWarSync sync = ExplodedWarSync.of(war).map(webapp, "");
+        write(webapp.resolve("js").resolve("a.js"), "a");
+        write(webapp.resolve("js").resolve("lib").resolve("b.js"), "b");
+
+        sync.sync(webapp.resolve("js"));
+        Assertions.assertEquals("a", Files.readString(war.resolve("js").resolve("a.js")));
+        Assertions.assertEquals("b", Files.readString(war.resolve("js").resolve("lib").resolve("b.js")));
+
+        deleteTree(webapp.resolve("js"));
+        sync.sync(webapp.resolve("js"));
+        Assertions.assertFalse(Files.exists(war.resolve("js")));
+    }
+
+    @Test
+    public void testSyncTree() throws Exception {
+        final Path classes = createDirectory("classes");
+        final Path war = dir.resolve("test.war");
+        final ExplodedWarSync sync = ExplodedWarSync.of(war).map(classes, "WEB-INF/classes");
+        final Path a = write(classes.resolve("org").resolve("A.class"), "a");
+        write(classes.resolve("org").resolve("B.class"), "b");
+
+        final Path target = war.resolve("WEB-INF").resolve("classes");
+        Assertions.assertEquals(2, sync.syncTree(classes).size());
+        Assertions.assertEquals("a", Files.readString(target.resolve("org").resolve("A.class")));
+
+        // Unchanged files are not copied again
+        Assertions.assertEquals(List.of(), sync.syncTree(classes));
+
+        // A file with the same size is copied if the last modified time changed
+        write(a, "c");
+        Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 2000L));
+        Assertions.assertEquals(List.of(target.resolve("org").resolve("A.class")), sync.syncTree(classes));
+        Assertions.assertEquals("c", Files.readString(target.resolve("org").resolve("A.class")));
+
+        // Files which no longer exist in the source directory are pruned
+        Files.delete(classes.resolve("org").resolve("B.class"));
+        Assertions.assertEquals(List.of(target.resolve("org").resolve("B.class")), sync.syncTree(classes));
+        Assertions.assertFalse(Files.exists(target.resolve("org").resolve("B.class")));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> sync.syncTree(dir.resolve("unmapped")));
+    }
+
+    private Path createDirectory(final String first, final String... more) throws IOException {
+        return Files.createDirectories(dir.resolve(Path.of(first, more)));
+    }
+
+    private static Path write(final Path file, final String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static void deleteTree(final Path path) throws IOException {
+        try (var files = Files.walk(path)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
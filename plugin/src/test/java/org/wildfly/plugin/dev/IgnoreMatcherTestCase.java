@@ -0,0 +1,63 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IgnoreMatcherTestCase {
+
+    @Test
+    public void testFileNamePattern() {
+        final IgnoreMatcher matcher = IgnoreMatcher.of(List.of("*.map", "node_modules"));
+        Assertions.assertTrue(matcher.matches(Path.of("app.js.map")));
+        Assertions.assertTrue(matcher.matches(Path.of("js", "lib", "app.js.map")));
+        Assertions.assertTrue(matcher.matches(Path.of("node_modules")));
+        Assertions.assertTrue(matcher.matches(Path.of("app", "node_modules", "lib", "index.js")));
+        Assertions.assertFalse(matcher.matches(Path.of("js", "app.js")));
+        Assertions.assertFalse(matcher.matches(Path.of("node_modules.txt")));
+    }
+
+    @Test
+    public void testPathPattern() {
+        final IgnoreMatcher matcher = IgnoreMatcher.of(List.of("js/generated/**", "/css/*.tmp"));
+        Assertions.assertTrue(matcher.matches(Path.of("js", "generated")));
+        Assertions.assertTrue(matcher.matches(Path.of("js", "generated", "a", "b.js")));
+        Assertions.assertTrue(matcher.matches(Path.of("css", "site.tmp")));
+        Assertions.assertFalse(matcher.matches(Path.of("js", "app.js")));
+        Assertions.assertFalse(matcher.matches(Path.of("other", "js", "generated", "b.js")));
+        Assertions.assertFalse(matcher.matches(Path.of("other", "css", "site.tmp")));
+    }
+
+    @Test
+    public void testAnySegments() {
+        final IgnoreMatcher matcher = IgnoreMatcher.of(List.of("**/build/*.js", "a/**/z"));
+        Assertions.assertTrue(matcher.matches(Path.of("build", "app.js")));
+        Assertions.assertTrue(matcher.matches(Path.of("x", "y", "build", "app.js")));
+        Assertions.assertTrue(matcher.matches(Path.of("a", "z")));
+        Assertions.assertTrue(matcher.matches(Path.of("a", "b", "c", "z", "file.txt")));
+        Assertions.assertFalse(matcher.matches(Path.of("x", "build", "app.css")));
+        Assertions.assertFalse(matcher.matches(Path.of("b", "z")));
+    }
+
+    @Test
+    public void testWildcards() {
+        final IgnoreMatcher matcher = IgnoreMatcher.of(List.of("file?.t*t"));
+        Assertions.assertTrue(matcher.matches(Path.of("file1.txt")));
+        Assertions.assertTrue(matcher.matches(Path.of("file2.tt")));
+        Assertions.assertFalse(matcher.matches(Path.of("file10.txt")));
+        Assertions.assertFalse(matcher.matches(Path.of("file1.txz")));
+    }
+
+    @Test
+    public void testEmpty() {
+        final IgnoreMatcher matcher = IgnoreMatcher.of(List.of(" ", "/"));
+        Assertions.assertTrue(matcher.isEmpty());
+        Assertions.assertFalse(matcher.matches(Path.of("file.txt")));
+    }
+}
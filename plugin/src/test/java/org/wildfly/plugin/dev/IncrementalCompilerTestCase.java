@@ -0,0 +1,127 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IncrementalCompilerTestCase {
+    private static final FileTime EPOCH = FileTime.fromMillis(0L);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testApiChange() throws Exception {
+        final Path sources = dir.resolve("src");
+        final Path classes = dir.resolve("classes");
+        final Path status = Files.createDirectories(dir.resolve("maven-status").resolve("compile"));
+        final Path a = write(sources, "org/example/A.java",
+                "package org.example; public class A { public int value() { return 1; } }");
+        write(sources, "org/example/B.java", "package org.example; class B { int get() { return new A().value(); } }");
+        write(sources, "org/example/C.java", "package org.example; class C { int get() { return new B().get(); } }");
+        write(sources, "org/example/D.java", "package org.example; class D { }");
+        final IncrementalCompiler compiler = IncrementalCompiler.of(sources, classes, List.of(), List.of(), null, status,
+                new SystemStreamLog());
+        Assertions.assertNotNull(compiler, "The JVM does not provide a Java compiler");
+        Assertions.assertTrue(compiler.compile(List.of(sources.resolve("org/example/A.java"),
+                sources.resolve("org/example/B.java"), sources.resolve("org/example/C.java"),
+                sources.resolve("org/example/D.java")), List.of()));
+        Assertions.assertFalse(Files.exists(status));
+
+        // A changed method body does not change the API, the dependents are not compiled
+        resetTimes(classes);
+        write(sources, "org/example/A.java", "package org.example; public class A { public int value() { return 2; } }");
+        Assertions.assertTrue(compiler.compile(List.of(a), List.of()));
+        Assertions.assertNotEquals(EPOCH, lastModified(classes, "org/example/A.class"));
+        Assertions.assertEquals(EPOCH, lastModified(classes, "org/example/B.class"));
+
+        // A changed API compiles the transitive dependents
+        resetTimes(classes);
+        write(sources, "org/example/A.java", "package org.example; public class A { public long value() { return 2; } }");
+        write(sources, "org/example/B.java", "package org.example; class B { int get() { return (int) new A().value(); } }");
+        Assertions.assertTrue(compiler.compile(List.of(a), List.of()));
+        Assertions.assertNotEquals(EPOCH, lastModified(classes, "org/example/B.class"));
+        Assertions.assertNotEquals(EPOCH, lastModified(classes, "org/example/C.class"));
+        Assertions.assertEquals(EPOCH, lastModified(classes, "org/example/D.class"));
+    }
+
+    @Test
+    public void testMissingSource() throws Exception {
+        final Path sources = dir.resolve("src");
+        final Path classes = dir.resolve("classes");
+        final Path a = write(sources, "org/example/A.java", "package org.example; public class A { }");
+        final Path b = write(sources, "org/example/B.java", "package org.example; class B extends A { }");
+        final IncrementalCompiler compiler = IncrementalCompiler.of(sources, classes, List.of(), List.of(), null, null,
+                new SystemStreamLog());
+        Assertions.assertNotNull(compiler, "The JVM does not provide a Java compiler");
+        Assertions.assertTrue(compiler.compile(List.of(a, b), List.of()));
+
+        // The source of a dependent class no longer exists, a full compile is required
+        Files.delete(b);
+        write(sources, "org/example/A.java", "package org.example; public class A { public void run() { } }");
+        Assertions.assertFalse(compiler.compile(List.of(a), List.of()));
+    }
+
+    @Test
+    public void testFailedCompile() throws Exception {
+        final Path sources = dir.resolve("src");
+        final Path classes = dir.resolve("classes");
+        final Path a = write(sources, "org/example/A.java",
+                "package org.example; public class A { public int value() { return 1; } }");
+        final Path b = write(sources, "org/example/B.java", "package org.example; class B { }");
+        final Path c = write(sources, "org/example/C.java",
+                "package org.example; class C { int get() { return new A().value(); } }");
+        final IncrementalCompiler compiler = IncrementalCompiler.of(sources, classes, List.of(), List.of(), null, null,
+                new SystemStreamLog());
+        Assertions.assertNotNull(compiler, "The JVM does not provide a Java compiler");
+        Assertions.assertTrue(compiler.compile(List.of(a, b, c), List.of()));
+
+        write(sources, "org/example/A.java", "package org.example; public class A { public long value() { return 2; } }");
+        write(sources, "org/example/B.java", "package org.example; class B {");
+        write(sources, "org/example/C.java",
+                "package org.example; class C { int get() { return (int) new A().value(); } }");
+        Assertions.assertThrows(MojoExecutionException.class, () -> compiler.compile(List.of(a, b), List.of()));
+
+        // Only B is fixed, the sources of the failed compile and the dependents of their API changes are compiled
+        resetTimes(classes);
+        write(sources, "org/example/B.java", "package org.example; class B { }");
+        Assertions.assertTrue(compiler.compile(List.of(b), List.of()));
+        Assertions.assertNotEquals(EPOCH, lastModified(classes, "org/example/A.class"));
+        Assertions.assertNotEquals(EPOCH, lastModified(classes, "org/example/C.class"));
+
+        // The failed sources are no longer compiled once the compile succeeded
+        resetTimes(classes);
+        Assertions.assertTrue(compiler.compile(List.of(b), List.of()));
+        Assertions.assertEquals(EPOCH, lastModified(classes, "org/example/A.class"));
+    }
+
+    private static Path write(final Path root, final String name, final String content) throws IOException {
+        final Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static FileTime lastModified(final Path root, final String name) throws IOException {
+        return Files.getLastModifiedTime(root.resolve(name));
+    }
+
+    private static void resetTimes(final Path root) throws IOException {
+        try (var files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, EPOCH);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InstallationUpdaterTestCase {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testUpdate() throws Exception {
+        final Path source = dir.resolve("staging");
+        final Path target = dir.resolve("server");
+        write(source, "jboss-modules.jar", "modules");
+        write(source, "modules/system/layers/base/org/a/main/a.jar", "a");
+        write(source, "modules/system/layers/base/org/b/main/b.jar", "b2");
+        write(source, "standalone/configuration/standalone.xml", "<server new/>");
+        write(source, "standalone/data/content/new", "new");
+
+        write(target, "jboss-modules.jar", "modules");
+        write(target, "modules/system/layers/base/org/a/main/a.jar", "a");
+        write(target, "modules/system/layers/base/org/c/main/c.jar", "c");
+        write(target, "standalone/configuration/standalone.xml", "<server/>");
+        write(target, "standalone/data/content/old", "old");
+        write(target, "standalone/log/server.log", "log");
+
+        final InstallationUpdater update = InstallationUpdater.update(source, target, Set.of(Path.of("standalone", "data"),
+                Path.of("standalone", "log")));
+        Assertions.assertEquals("2 file(s) copied, 1 deleted, 2 unchanged", update.summary());
+
+        Assertions.assertEquals("b2", read(target, "modules/system/layers/base/org/b/main/b.jar"));
+        Assertions.assertEquals("<server new/>", read(target, "standalone/configuration/standalone.xml"));
+        Assertions.assertFalse(Files.exists(target.resolve("modules/system/layers/base/org/c")));
+        // Preserved paths are neither replaced nor deleted
+        Assertions.assertEquals("old", read(target, "standalone/data/content/old"));
+        Assertions.assertFalse(Files.exists(target.resolve("standalone/data/content/new")));
+        Assertions.assertEquals("log", read(target, "standalone/log/server.log"));
+
+        // Added files are not replaced files
+        Assertions.assertTrue(update.isReplaced(Path.of("standalone", "configuration")));
+        Assertions.assertFalse(update.isReplaced(Path.of("modules")));
+        Assertions.assertFalse(update.isReplaced(Path.of("jboss-modules.jar")));
+    }
+
+    @Test
+    public void testReplacedModule() throws Exception {
+        final Path source = dir.resolve("staging");
+        final Path target = dir.resolve("server");
+        write(source, "modules/org/a/main/a.jar", "a2");
+        write(target, "modules/org/a/main/a.jar", "a1");
+
+        final InstallationUpdater update = InstallationUpdater.update(source, target, Set.of());
+        Assertions.assertTrue(update.isReplaced(Path.of("modules")));
+        Assertions.assertEquals("a2", read(target, "modules/org/a/main/a.jar"));
+    }
+
+    private static void write(final Path root, final String name, final String content) throws IOException {
+        final Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static String read(final Path root, final String name) throws IOException {
+        return Files.readString(root.resolve(name));
+    }
+}
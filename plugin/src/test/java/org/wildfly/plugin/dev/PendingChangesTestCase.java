@@ -0,0 +1,61 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.dev;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PendingChangesTestCase {
+    private static final WatchHandler.Result CONTENT_UPDATE = new WatchHandler.Result() {
+        @Override
+        public boolean requiresContentUpdate() {
+            return true;
+        }
+    };
+    private static final WatchHandler.Result RECOMPILE = new WatchHandler.Result() {
+        @Override
+        public boolean requiresRecompile() {
+            return true;
+        }
+    };
+
+    @Test
+    public void testRetain() throws Exception {
+        final PendingChanges pendingChanges = new PendingChanges();
+        final ChangeBatch failed = new ChangeBatch();
+        failed.add(Path.of("site.css"), CONTENT_UPDATE);
+        failed.add(Path.of("A.java"), RECOMPILE);
+        pendingChanges.retain(failed);
+        // A retained batch does not start a new cycle on its own
+        Assertions.assertFalse(pendingChanges.hasPending());
+
+        final ChangeBatch next = new ChangeBatch();
+        next.add(Path.of("B.java"), RECOMPILE);
+        pendingChanges.submit(next);
+        final ChangeBatch batch = pendingChanges.take();
+        Assertions.assertEquals(Set.of(Path.of("site.css"), Path.of("A.java"), Path.of("B.java")), batch.changedFiles());
+        Assertions.assertTrue(batch.requiresRecompile());
+        Assertions.assertTrue(batch.requiresContentUpdate());
+
+        // The retained changes are only applied once
+        final ChangeBatch other = new ChangeBatch();
+        other.add(Path.of("C.java"), RECOMPILE);
+        pendingChanges.submit(other);
+        Assertions.assertEquals(Set.of(Path.of("C.java")), pendingChanges.take().changedFiles());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final PendingChanges pendingChanges = new PendingChanges();
+        final ChangeBatch failed = new ChangeBatch();
+        failed.add(Path.of("site.css"), CONTENT_UPDATE);
+        pendingChanges.retain(failed);
+        pendingChanges.close();
+        Assertions.assertNull(pendingChanges.take());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wildfly.channel.Stream;
+
+public class ChannelLockTestCase {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testReadWrite() throws Exception {
+        final Path file = dir.resolve("channels.lock");
+        Assertions.assertNull(ChannelLock.read(file));
+
+        final MavenArtifact artifact = artifact("org.example", "a", "1.0", "content");
+        final MavenArtifact unlocked = artifact("org.example", "b", "2.0", "other");
+        final String fingerprint = ChannelLock.fingerprint(List.of(channel("org.example:manifest:1.0")), List.of());
+        ChannelLock.write(file, fingerprint, "schemaVersion: \"1.0.0\"\n", List.of(new Stream("org.example", "a", "1.0")),
+                List.of(artifact, unlocked));
+
+        final ChannelLock lock = ChannelLock.read(file);
+        Assertions.assertNotNull(lock);
+        Assertions.assertEquals("schemaVersion: \"1.0.0\"\n", lock.manifestVersions());
+        Assertions.assertTrue(Files.readString(file).contains("org.example:a:jar:=1.0|"));
+        // Artifacts without a stream are not locked
+        Assertions.assertFalse(Files.readString(file).contains("org.example:b"));
+
+        final Path manifest = dir.resolve("manifest.yaml");
+        lock.writeManifest(manifest);
+        Assertions.assertTrue(Files.readString(manifest).contains("org.example"));
+    }
+
+    @Test
+    public void testVerify() throws Exception {
+        final Path file = dir.resolve("channels.lock");
+        final MavenArtifact artifact = artifact("org.example", "a", "1.0", "content");
+        ChannelLock.write(file, "fingerprint", null, List.of(new Stream("org.example", "a", "1.0")), List.of(artifact));
+        final ChannelLock lock = ChannelLock.read(file);
+        Assertions.assertNull(lock.manifestVersions());
+
+        Assertions.assertTrue(lock.verify(artifact("org.example", "a", "1.0", "content")));
+        Assertions.assertFalse(lock.verify(artifact("org.example", "a", "1.0", "tampered")));
+        // Other versions and artifacts which are not locked are not verified
+        Assertions.assertTrue(lock.verify(artifact("org.example", "a", "1.1", "tampered")));
+        Assertions.assertTrue(lock.verify(artifact("org.example", "c", "1.0", "tampered")));
+    }
+
+    @Test
+    public void testMismatch() throws Exception {
+        final List<ChannelConfiguration> channels = List.of(channel("org.example:manifest:1.0"));
+        final List<RemoteRepository> repositories = List.of(
+                new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2").build());
+        final Path file = dir.resolve("channels.lock");
+        ChannelLock.write(file, ChannelLock.fingerprint(channels, repositories), null, List.of(), List.of());
+        final ChannelLock lock = ChannelLock.read(file);
+
+        Assertions.assertTrue(lock.matches(List.of(channel("org.example:manifest:1.0")), repositories));
+        Assertions.assertFalse(lock.matches(List.of(channel("org.example:manifest:1.1")), repositories));
+        Assertions.assertFalse(lock.matches(channels, List.of()));
+        final ChannelConfiguration named = channel("org.example:manifest:1.0");
+        named.setName("named");
+        Assertions.assertFalse(lock.matches(List.of(named), repositories));
+    }
+
+    @Test
+    public void testUrlManifestContent() throws Exception {
+        final Path manifest = Files.writeString(dir.resolve("manifest.yaml"), "schemaVersion: 1.0.0\nstreams: []\n");
+        final List<ChannelConfiguration> channels = List.of(channel(manifest.toUri().toString()));
+        final String fingerprint = ChannelLock.fingerprint(channels, List.of());
+        Assertions.assertEquals(fingerprint, ChannelLock.fingerprint(channels, List.of()));
+
+        // The content of the manifest changed, the URL did not
+        Files.writeString(manifest, "schemaVersion: 1.0.0\nstreams:\n  - groupId: org.example\n");
+        Assertions.assertNotEquals(fingerprint, ChannelLock.fingerprint(channels, List.of()));
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        final Path file = Files.writeString(dir.resolve("channels.lock"), "org.example:a:jar:=1.0|abc\n");
+        Assertions.assertThrows(IOException.class, () -> ChannelLock.read(file));
+        Files.writeString(file, "channels=abc\ninvalid\n");
+        Assertions.assertThrows(IOException.class, () -> ChannelLock.read(file));
+    }
+
+    private MavenArtifact artifact(final String groupId, final String artifactId, final String version,
+            final String content) throws IOException {
+        final Path file = Files.writeString(dir.resolve(artifactId + "-" + version + "-" + content + ".jar"), content);
+        return new MavenArtifact().setGroupId(groupId).setArtifactId(artifactId).setExtension("jar").setVersion(version)
+                .setPath(file);
+    }
+
+    private static ChannelConfiguration channel(final String value) {
+        final ChannelConfiguration channel = new ChannelConfiguration();
+        channel.set(value);
+        return channel;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.universe.maven.MavenUniverseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wildfly.channel.ArtifactCoordinate;
+import org.wildfly.channel.MavenArtifact;
+
+/**
+ * Compares the {@link MavenArtifactMapper} with mapping the artifacts by formatted {@code String} keys, for the number
+ * of artifacts of a typical provisioning. This is not run by the tests, run the {@link #main(String[])} method with the
+ * test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MavenArtifactMapperBenchmark {
+
+    @Param({ "3000" })
+    int artifactCount;
+
+    private List<org.jboss.galleon.universe.maven.MavenArtifact> galleonArtifacts;
+    private List<MavenArtifact> resolvedArtifacts;
+
+    @Setup
+    public void setup() {
+        galleonArtifacts = new ArrayList<>(artifactCount);
+        resolvedArtifacts = new ArrayList<>(artifactCount);
+        for (int i = 0; i < artifactCount; i++) {
+            final String groupId = "org.example.group" + (i % 50);
+            final String artifactId = "artifact-" + i;
+            final String classifier = i % 10 == 0 ? "sources" : "";
+            galleonArtifacts.add(new org.jboss.galleon.universe.maven.MavenArtifact()
+                    .setGroupId(groupId)
+                    .setArtifactId(artifactId)
+                    .setExtension("jar")
+                    .setClassifier(classifier)
+                    .setVersion("1.0." + i));
+            resolvedArtifacts.add(new MavenArtifact(groupId, artifactId, "jar", classifier, "1.1." + i,
+                    new File(artifactId + ".jar")));
+        }
+    }
+
+    @Benchmark
+    public List<org.jboss.galleon.universe.maven.MavenArtifact> coordinateKeys(final Blackhole blackhole)
+            throws MavenUniverseException {
+        final MavenArtifactMapper mapper = new MavenArtifactMapper(galleonArtifacts);
+        blackhole.consume(mapper.toChannelArtifacts());
+        return mapper.applyResolution(resolvedArtifacts);
+    }
+
+    @Benchmark
+    public List<org.jboss.galleon.universe.maven.MavenArtifact> formattedKeys(final Blackhole blackhole) {
+        // The mapping by String.format keys used before the coordinate keys
+        final Map<String, List<org.jboss.galleon.universe.maven.MavenArtifact>> artifactMap = new HashMap<>();
+        for (org.jboss.galleon.universe.maven.MavenArtifact a : galleonArtifacts) {
+            final String key = String.format("%s:%s:%s:%s", a.getGroupId(), a.getArtifactId(), a.getExtension(),
+                    a.getClassifier());
+            if (!artifactMap.containsKey(key)) {
+                artifactMap.put(key, new ArrayList<>());
+            }
+            artifactMap.get(key).add(a);
+        }
+        final List<ArtifactCoordinate> coordinates = new ArrayList<>();
+        for (org.jboss.galleon.universe.maven.MavenArtifact a : galleonArtifacts) {
+            coordinates.add(new ArtifactCoordinate(a.getGroupId(), a.getArtifactId(), a.getExtension(), a.getClassifier(),
+                    a.getVersion()));
+        }
+        blackhole.consume(coordinates);
+        final List<org.jboss.galleon.universe.maven.MavenArtifact> result = new ArrayList<>();
+        for (MavenArtifact channelArtifact : resolvedArtifacts) {
+            final String key = String.format("%s:%s:%s:%s", channelArtifact.getGroupId(), channelArtifact.getArtifactId(),
+                    channelArtifact.getExtension(), channelArtifact.getClassifier());
+            for (org.jboss.galleon.universe.maven.MavenArtifact a : artifactMap.get(key)) {
+                MavenArtifactMapper.resolve(a, channelArtifact);
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MavenArtifactMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
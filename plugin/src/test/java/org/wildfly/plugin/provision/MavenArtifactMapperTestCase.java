@@ -0,0 +1,78 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.File;
+import java.util.List;
+
+import org.jboss.galleon.universe.maven.MavenUniverseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.wildfly.channel.ArtifactCoordinate;
+import org.wildfly.channel.MavenArtifact;
+
+public class MavenArtifactMapperTestCase {
+
+    @Test
+    public void testCoordinateKey() {
+        final MavenArtifactMapper.CoordinateKey key = new MavenArtifactMapper.CoordinateKey("org.example", "a", null, null);
+        // A null extension or classifier is the same as an empty one
+        Assertions.assertEquals(key, new MavenArtifactMapper.CoordinateKey("org.example", "a", "", ""));
+        Assertions.assertEquals(key.hashCode(), new MavenArtifactMapper.CoordinateKey("org.example", "a", "", "").hashCode());
+        Assertions.assertNotEquals(key, new MavenArtifactMapper.CoordinateKey("org.example", "a", "jar", ""));
+        Assertions.assertNotEquals(key, new MavenArtifactMapper.CoordinateKey("org.example", "a", "", "sources"));
+        Assertions.assertNotEquals(key, new MavenArtifactMapper.CoordinateKey("org.example", "b", "", ""));
+        Assertions.assertEquals("org.example:a::", key.toString());
+    }
+
+    @Test
+    public void testPartialResolution() throws Exception {
+        final org.jboss.galleon.universe.maven.MavenArtifact a = galleonArtifact("a", "");
+        final org.jboss.galleon.universe.maven.MavenArtifact sources = galleonArtifact("a", "sources");
+        final org.jboss.galleon.universe.maven.MavenArtifact b = galleonArtifact("b", "");
+        final MavenArtifactMapper mapper = new MavenArtifactMapper(List.of(a, sources, b));
+        Assertions.assertEquals(3, mapper.toChannelArtifacts().size());
+
+        // Only the artifacts of the resolved coordinates are resolved
+        List<org.jboss.galleon.universe.maven.MavenArtifact> resolved = mapper
+                .applyResolution(List.of(channelArtifact("a", "", "1.1")));
+        Assertions.assertEquals(List.of(a), resolved);
+        Assertions.assertEquals("1.1", a.getVersion());
+        Assertions.assertEquals(new File("a-1.1.jar").toPath(), a.getPath());
+        Assertions.assertEquals("1.0", sources.getVersion());
+        Assertions.assertNull(b.getPath());
+
+        resolved = mapper.applyResolution(List.of(channelArtifact("a", "sources", "1.1"), channelArtifact("b", "", "2.0")));
+        Assertions.assertEquals(List.of(sources, b), resolved);
+        Assertions.assertEquals("2.0", b.getVersion());
+        // The coordinates are computed once
+        Assertions.assertEquals("1.0", mapper.toChannelArtifacts().get(2).getVersion());
+    }
+
+    @Test
+    public void testUnknownArtifact() {
+        final MavenArtifactMapper mapper = new MavenArtifactMapper(List.of(galleonArtifact("a", "")));
+        Assertions.assertThrows(MavenUniverseException.class,
+                () -> mapper.applyResolution(List.of(channelArtifact("c", "", "1.0"))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> mapper.get(new ArtifactCoordinate("org.example", "c", "jar", "", "1.0")));
+        Assertions.assertEquals(1, mapper.get(new ArtifactCoordinate("org.example", "a", "jar", "", "1.0")).size());
+    }
+
+    private static org.jboss.galleon.universe.maven.MavenArtifact galleonArtifact(final String artifactId,
+            final String classifier) {
+        return new org.jboss.galleon.universe.maven.MavenArtifact()
+                .setGroupId("org.example")
+                .setArtifactId(artifactId)
+                .setExtension("jar")
+                .setClassifier(classifier)
+                .setVersion("1.0");
+    }
+
+    private static MavenArtifact channelArtifact(final String artifactId, final String classifier, final String version) {
+        return new MavenArtifact("org.example", artifactId, "jar", classifier, version,
+                new File(artifactId + "-" + version + ".jar"));
+    }
+}
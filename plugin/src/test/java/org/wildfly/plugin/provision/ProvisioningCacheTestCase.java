@@ -0,0 +1,144 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.plugin.provision;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ProvisioningCacheTestCase {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testKey() {
+        final String key = ProvisioningCache.keyBuilder().add("plugin", "6.1.0.Final").add("config", "<config/>").build();
+        Assertions.assertEquals(key, ProvisioningCache.keyBuilder().add("plugin", "6.1.0.Final").add("config", "<config/>")
+                .build());
+        Assertions.assertNotEquals(key, ProvisioningCache.keyBuilder().add("plugin", "6.1.0.Final").add("config", "<other/>")
+                .build());
+        // The inputs are delimited, moving a character from the name to the value changes the key
+        Assertions.assertNotEquals(ProvisioningCache.keyBuilder().add("ab", "c").build(),
+                ProvisioningCache.keyBuilder().add("a", "bc").build());
+        Assertions.assertEquals(ProvisioningCache.keyBuilder().add("a", (String) null).build(),
+                ProvisioningCache.keyBuilder().add("a", "").build());
+    }
+
+    @Test
+    public void testStoreAndMaterialize() throws Exception {
+        final Path server = createServer("server");
+        final ProvisioningCache cache = ProvisioningCache.of(dir.resolve("cache"), false, new SystemStreamLog());
+        Assertions.assertFalse(cache.materialize("key", dir.resolve("missing")));
+
+        cache.store("key", server);
+        final Path target = dir.resolve("target");
+        Assertions.assertTrue(cache.materialize("key", target));
+        Assertions.assertEquals("module", Files.readString(target.resolve("modules/org/a/main/a.jar")));
+        Assertions.assertEquals("<server/>", Files.readString(target.resolve("standalone/configuration/standalone.xml")));
+        Assertions.assertFalse(Files.exists(target.resolve(".wildfly-provisioning-cache")));
+
+        // A stored entry is not replaced
+        Files.writeString(server.resolve("modules/org/a/main/a.jar"), "changed");
+        cache.store("key", server);
+        final Path other = dir.resolve("other");
+        Assertions.assertTrue(cache.materialize("key", other));
+        Assertions.assertEquals("module", Files.readString(other.resolve("modules/org/a/main/a.jar")));
+    }
+
+    @Test
+    public void testIncompleteEntry() throws Exception {
+        final Path server = createServer("server");
+        final Path cacheDir = dir.resolve("cache");
+        // An entry without the marker of a complete entry
+        Files.createDirectories(cacheDir.resolve("key").resolve("modules"));
+        final ProvisioningCache cache = ProvisioningCache.of(cacheDir, false, new SystemStreamLog());
+        Assertions.assertFalse(cache.materialize("key", dir.resolve("target")));
+
+        cache.store("key", server);
+        final Path target = dir.resolve("target");
+        Assertions.assertTrue(cache.materialize("key", target));
+        Assertions.assertEquals("module", Files.readString(target.resolve("modules/org/a/main/a.jar")));
+    }
+
+    @Test
+    public void testStoreFailure() throws Exception {
+        // The cache directory cannot be created, storing is best effort
+        final Path cacheDir = Files.writeString(dir.resolve("cache"), "not a directory");
+        final ProvisioningCache cache = ProvisioningCache.of(cacheDir, false, new SystemStreamLog());
+        cache.store("key", createServer("server"));
+        Assertions.assertFalse(cache.materialize("key", dir.resolve("target")));
+    }
+
+    @Test
+    public void testHardLinks() throws Exception {
+        final Path server = createServer("server");
+        final ProvisioningCache cache = ProvisioningCache.of(dir.resolve("cache"), true, new SystemStreamLog());
+        cache.store("key", server);
+        final Path target = dir.resolve("target");
+        Assertions.assertTrue(cache.materialize("key", target));
+
+        final Path cached = dir.resolve("cache").resolve("key");
+        // The files which are not modified after provisioning are linked, if supported by the file system
+        if (Files.readAttributes(cached.resolve("modules/org/a/main/a.jar"), BasicFileAttributes.class).fileKey() != null) {
+            Assertions.assertTrue(Files.isSameFile(cached.resolve("modules/org/a/main/a.jar"),
+                    target.resolve("modules/org/a/main/a.jar")));
+        }
+        // The mutable paths are always copied
+        Assertions.assertFalse(Files.isSameFile(cached.resolve("standalone/configuration/standalone.xml"),
+                target.resolve("standalone/configuration/standalone.xml")));
+        Assertions.assertFalse(Files.isSameFile(cached.resolve("bin/standalone.sh"), target.resolve("bin/standalone.sh")));
+        Files.writeString(target.resolve("standalone/configuration/standalone.xml"), "<changed/>");
+        Assertions.assertEquals("<server/>", Files.readString(cached.resolve("standalone/configuration/standalone.xml")));
+    }
+
+    @Test
+    public void testPrune() throws Exception {
+        final Path server = createServer("server");
+        final Path cacheDir = dir.resolve("cache");
+        final ProvisioningCache cache = ProvisioningCache.of(cacheDir, false, new SystemStreamLog());
+        for (int i = 0; i < ProvisioningCache.MAX_ENTRIES; i++) {
+            cache.store("key" + i, server);
+            Files.setLastModifiedTime(cacheDir.resolve("key" + i).resolve(".wildfly-provisioning-cache"),
+                    FileTime.fromMillis(1000L * (i + 1)));
+        }
+        // A temporary directory left behind by an interrupted build
+        final Path tmp = Files.createDirectories(cacheDir.resolve("key-1.tmp"));
+        Files.setLastModifiedTime(tmp, FileTime.fromMillis(0L));
+        // Using an entry makes it the most recently used entry
+        Assertions.assertTrue(cache.materialize("key0", dir.resolve("target")));
+        cache.store("other", server);
+
+        Assertions.assertTrue(Files.exists(cacheDir.resolve("key0")));
+        Assertions.assertFalse(Files.exists(cacheDir.resolve("key1")));
+        Assertions.assertTrue(Files.exists(cacheDir.resolve("key2")));
+        Assertions.assertTrue(Files.exists(cacheDir.resolve("other")));
+        Assertions.assertFalse(Files.exists(tmp));
+        try (var entries = Files.list(cacheDir)) {
+            Assertions.assertEquals(ProvisioningCache.MAX_ENTRIES, entries.count());
+        }
+    }
+
+    private Path createServer(final String name) throws IOException {
+        final Path server = dir.resolve(name);
+        write(server, "modules/org/a/main/a.jar", "module");
+        write(server, "standalone/configuration/standalone.xml", "<server/>");
+        write(server, "bin/standalone.sh", "#!/bin/sh");
+        return server;
+    }
+
+    private static void write(final Path root, final String name, final String content) throws IOException {
+        final Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}